@@ -0,0 +1,102 @@
+package kiwi;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost of building the dialog box for one message: the FXML path that {@link DialogBox} used to
+ * take, the programmatic layout that replaced it, and a dialog box taken from and returned to the pool.
+ * The old FXML file is kept next to this benchmark for the comparison. Run with
+ * {@code ./gradlew jmh -Pjmh.includes=DialogBoxBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DialogBoxBenchmark {
+    private static final String TEXT = "Got it. I've added this task:\n  [T][ ] read book\nNow you have 3 tasks.";
+
+    private Image image;
+
+    /**
+     * Starts the JavaFX toolkit, which images and controls need even when they are never shown.
+     */
+    @Setup
+    public void setUp() {
+        try {
+            Platform.startup(() -> { });
+        } catch (IllegalStateException e) {
+            // Already started by an earlier trial in this JVM.
+        }
+        image = Avatar.KIWI.getImage();
+    }
+
+    /**
+     * Loads a dialog box from FXML for every message and flips it, as the old code did for Kiwi's replies.
+     */
+    @Benchmark
+    public HBox fxmlPerMessage() throws IOException {
+        FxmlDialog controller = new FxmlDialog();
+        HBox root = new HBox();
+        FXMLLoader fxmlLoader = new FXMLLoader(DialogBoxBenchmark.class.getResource("/view/DialogBox.fxml"));
+        fxmlLoader.setController(controller);
+        fxmlLoader.setRoot(root);
+        fxmlLoader.load();
+        controller.dialog.setText(TEXT);
+        controller.displayPicture.setImage(image);
+
+        ObservableList<Node> tmp = FXCollections.observableArrayList(root.getChildren());
+        Collections.reverse(tmp);
+        root.getChildren().setAll(tmp);
+        root.setAlignment(Pos.TOP_LEFT);
+        return root;
+    }
+
+    /**
+     * Builds a new dialog box in code for every message, without reusing released ones.
+     */
+    @Benchmark
+    public DialogBox programmaticPerMessage() {
+        // Nothing is ever released, so the pool stays empty and every call builds a new dialog box.
+        return DialogBox.getKiwiDialog(TEXT, image);
+    }
+
+    /**
+     * Takes a dialog box from the pool and releases it straight back, so every call after the first reuses one.
+     */
+    @Benchmark
+    public DialogBox pooled() {
+        DialogBox dialogBox = DialogBox.getKiwiDialog(TEXT, image);
+        dialogBox.release();
+        return dialogBox;
+    }
+
+    /**
+     * Stands in for the old controller, receiving the nodes named in the FXML file.
+     */
+    public static class FxmlDialog {
+        @FXML
+        private Label dialog;
+        @FXML
+        private ImageView displayPicture;
+    }
+}
@@ -0,0 +1,108 @@
+package kiwi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import kiwi.command.CommandRegistry;
+import kiwi.command.CommandType;
+import kiwi.exception.KiwiException;
+import kiwi.loadtest.SyntheticTasks;
+import kiwi.storage.SnapshotFormat;
+import kiwi.storage.Storage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures one command end to end through {@link Kiwi#getResponse(String)}: dispatch, parsing, the task list
+ * operation, journaling and formatting the reply. Each trial starts from a freshly loaded task file.
+ * <p>
+ * Commands that add a task are timed together with a {@code delete} of the new task, so that the list keeps
+ * its size across iterations; their scores therefore cover two commands. Run with
+ * {@code ./gradlew jmh -Pjmh.includes=KiwiBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KiwiBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"BALANCED"})
+    private SyntheticTasks.Mix mix;
+
+    @Param({
+        "list",
+        "list page 25",
+        "find report",
+        "find w7",
+        "due 2025-03-03",
+        "overdue",
+        "upcoming",
+        "agenda 2025-03-03",
+        "mark 500",
+        "unmark 500",
+        "edit 500 /desc review report w7",
+        "todo read book",
+        "deadline submit report /by 2025-03-03 18:00",
+        "event team meeting /from 2025-03-03 10:00 /to 12:00",
+        "blah",
+    })
+    private String command;
+
+    private Path directory;
+    private Kiwi kiwi;
+    private String undo;
+
+    /**
+     * Writes a task file of the requested size and starts Kiwi on it.
+     */
+    @Setup
+    public void setUp() throws IOException, KiwiException {
+        directory = Files.createTempDirectory("kiwi-bench");
+        String filePath = directory.resolve("kiwi.txt").toString();
+        Storage storage = new Storage(filePath);
+        storage.setSnapshotFormat(SnapshotFormat.BINARY);
+        storage.save(SyntheticTasks.generate(size, mix));
+        storage.close();
+        kiwi = new Kiwi(filePath);
+
+        CommandType type = CommandRegistry.lookup(command);
+        boolean isAdd = type == CommandType.TODO || type == CommandType.DEADLINE || type == CommandType.EVENT;
+        undo = isAdd ? "delete " + (size + 1) : null;
+    }
+
+    /**
+     * Saves through {@code bye}, closes Kiwi, which also stops the background writers, then deletes the task
+     * files.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        kiwi.getResponse("bye");
+        kiwi.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public String getResponse() {
+        String reply = kiwi.getResponse(command);
+        if (undo != null) {
+            kiwi.getResponse(undo);
+        }
+        return reply;
+    }
+}
@@ -0,0 +1,51 @@
+package kiwi.command;
+
+import java.util.concurrent.TimeUnit;
+
+import kiwi.loadtest.SyntheticTasks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@code find} through the description index against the linear scan it replaced.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"TODOS", "BALANCED"})
+    private SyntheticTasks.Mix mix;
+
+    @Param({"w1234", "report", "ook"})
+    private String keyword;
+
+    private TaskList tasks;
+
+    /**
+     * Builds a task list whose descriptions mix common words with rare, numbered ones.
+     */
+    @Setup
+    public void setUp() {
+        tasks = new TaskList(SyntheticTasks.generate(size, mix));
+    }
+
+    @Benchmark
+    public TaskList indexedFind() {
+        return tasks.findTasks(keyword);
+    }
+
+    @Benchmark
+    public TaskList linearScan() {
+        return tasks.scanTasks(keyword);
+    }
+}
@@ -0,0 +1,168 @@
+package kiwi.command;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import kiwi.exception.KiwiException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares command dispatch and argument parsing through {@link CommandRegistry} and the single-pass
+ * {@link Parser} against the split, lower-case and regex path they replaced, over a fixed mix of inputs.
+ * The old path is kept here, unchanged, as the baseline. Each {@link Parser} method is also measured on its own.
+ * Parsing does not depend on the length of the task list, so these benchmarks have no size parameter. Run with
+ * {@code ./gradlew jmh -Pjmh.includes=ParserBenchmark -Pjmh.profilers=gc} to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    private static final String[] INPUTS = {
+        "todo read book",
+        "deadline return book /by 2025-04-02 23:00",
+        "event project meeting /from 2025-03-01 10:00 /to 2025-03-01 12:00",
+        "edit 3 /desc read another book /by 2025-05-01",
+        "mark 2",
+        "find book",
+        "list",
+        "unknown command",
+    };
+
+    /**
+     * Dispatches and parses every input through the keyword trie and the single-pass parser.
+     */
+    @Benchmark
+    public void registryAndTokenizer(Blackhole blackhole) throws KiwiException {
+        for (String input : INPUTS) {
+            CommandType type = CommandRegistry.lookup(input);
+            if (type == null) {
+                blackhole.consume(input);
+                continue;
+            }
+            String arguments = CommandRegistry.argumentsOf(input);
+            switch (type) {
+            case DEADLINE:
+                blackhole.consume(Parser.parseDeadlineArgs(arguments));
+                break;
+            case EVENT:
+                blackhole.consume(Parser.parseEventArgs(arguments));
+                break;
+            case EDIT:
+                blackhole.consume(Parser.parseEditArgs(arguments));
+                break;
+            default:
+                blackhole.consume(arguments);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Dispatches and parses every input the old way: split, lower-case and match with regular expressions.
+     */
+    @Benchmark
+    public void splitAndRegex(Blackhole blackhole) throws KiwiException {
+        for (String input : INPUTS) {
+            String[] parts = input.split(" ", 2);
+            String command = parts[0].toLowerCase();
+            String arguments = parts.length > 1 ? parts[1] : "";
+            switch (command) {
+            case "deadline":
+                blackhole.consume(legacyDeadlineArgs(arguments));
+                break;
+            case "event":
+                blackhole.consume(legacyEventArgs(arguments));
+                break;
+            case "edit":
+                blackhole.consume(legacyEditArgs(arguments));
+                break;
+            case "todo":
+            case "mark":
+            case "find":
+            case "list":
+                blackhole.consume(arguments);
+                break;
+            default:
+                blackhole.consume(command);
+                break;
+            }
+        }
+    }
+
+    private static String[] legacyDeadlineArgs(String arguments) throws KiwiException {
+        String[] parts = arguments.split("/by", 2);
+        if (parts.length < 2 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty()) {
+            throw new KiwiException("Invalid deadline format!");
+        }
+        return new String[]{parts[0].trim(), parts[1].trim()};
+    }
+
+    private static String[] legacyEventArgs(String arguments) throws KiwiException {
+        String[] parts = arguments.split("/from", 2);
+        if (parts.length < 2) {
+            throw new KiwiException("Invalid event format!");
+        }
+        String[] timeParts = parts[1].split("/to", 2);
+        if (timeParts.length < 2) {
+            throw new KiwiException("Invalid event format!");
+        }
+        return new String[]{parts[0].trim(), timeParts[0].trim(), timeParts[1].trim()};
+    }
+
+    @Benchmark
+    public int parseIndex() throws KiwiException {
+        return Parser.parseIndex("500", 1000);
+    }
+
+    @Benchmark
+    public LocalDate parseDate() throws KiwiException {
+        return Parser.parseDate("2025-03-03", "due DATE");
+    }
+
+    @Benchmark
+    public int parseCount() throws KiwiException {
+        return Parser.parseCount("10", 5);
+    }
+
+    @Benchmark
+    public String[] parseDeadlineArgs() throws KiwiException {
+        return Parser.parseDeadlineArgs(INPUTS[1].substring("deadline ".length()));
+    }
+
+    @Benchmark
+    public String[] parseEventArgs() throws KiwiException {
+        return Parser.parseEventArgs(INPUTS[2].substring("event ".length()));
+    }
+
+    @Benchmark
+    public Map<String, String> parseEditArgs() throws KiwiException {
+        return Parser.parseEditArgs(INPUTS[3].substring("edit ".length()));
+    }
+
+    private static Map<String, String> legacyEditArgs(String arguments) throws KiwiException {
+        Map<String, String> updates = new HashMap<>();
+        String[] parts = arguments.split("\\s+/(desc|by|from|to)\\s+", -1);
+        try {
+            int index = Integer.parseInt(parts[0].trim()) - 1;
+            updates.put("index", String.valueOf(index));
+        } catch (NumberFormatException e) {
+            throw new KiwiException("Invalid task number format!");
+        }
+        Pattern pattern = Pattern.compile("/(desc|by|from|to)\\s+([^/]+)");
+        Matcher matcher = pattern.matcher(arguments);
+        while (matcher.find()) {
+            updates.put(matcher.group(1), matcher.group(2).trim());
+        }
+        return updates;
+    }
+}
@@ -0,0 +1,80 @@
+package kiwi.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import kiwi.exception.KiwiException;
+import kiwi.loadtest.SyntheticTasks;
+import kiwi.task.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures loading and saving a whole task list in each snapshot format. The snapshot is written once during
+ * setup, so every load reads the same file with an empty journal. Run with
+ * {@code ./gradlew jmh -Pjmh.includes=StorageBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"TODOS", "BALANCED", "EVENTS"})
+    private SyntheticTasks.Mix mix;
+
+    @Param({"TEXT", "BINARY"})
+    private SnapshotFormat format;
+
+    private Path directory;
+    private Storage storage;
+    private ArrayList<Task> tasks;
+
+    /**
+     * Writes the snapshot that {@link #load()} reads.
+     */
+    @Setup
+    public void setUp() throws IOException, KiwiException {
+        directory = Files.createTempDirectory("kiwi-storage-bench");
+        storage = new Storage(directory.resolve("kiwi.txt").toString());
+        storage.setSnapshotFormat(format);
+        tasks = SyntheticTasks.generate(size, mix);
+        storage.save(tasks);
+    }
+
+    /**
+     * Closes the storage and deletes its files.
+     */
+    @TearDown
+    public void tearDown() throws IOException, KiwiException {
+        storage.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Task> load() throws KiwiException {
+        return storage.load();
+    }
+
+    @Benchmark
+    public void save() throws KiwiException {
+        storage.save(tasks);
+    }
+}
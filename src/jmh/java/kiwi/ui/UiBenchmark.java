@@ -0,0 +1,83 @@
+package kiwi.ui;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import kiwi.command.TaskList;
+import kiwi.exception.KiwiException;
+import kiwi.loadtest.SyntheticTasks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures formatting replies that list tasks: the first and last page of {@code list}, which should cost the
+ * same at every size, and the unpaged {@code find} and {@code agenda} replies, which grow with the number of
+ * matches. The matches are looked up once during setup, so only the formatting is timed. Run with
+ * {@code ./gradlew jmh -Pjmh.includes=UiBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UiBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final LocalDate DATE = LocalDate.of(SyntheticTasks.YEAR, 3, 3);
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"TODOS", "BALANCED", "EVENTS"})
+    private SyntheticTasks.Mix mix;
+
+    private final Ui ui = new Ui();
+    private TaskList tasks;
+    private int lastPage;
+    private TaskList matches;
+    private TaskList events;
+    private TaskList deadlines;
+
+    /**
+     * Builds the task list and looks up the matches to format.
+     */
+    @Setup
+    public void setUp() {
+        tasks = new TaskList(SyntheticTasks.generate(size, mix));
+        lastPage = (size + PAGE_SIZE - 1) / PAGE_SIZE;
+        matches = tasks.findTasks("report");
+        events = tasks.findEventsOn(DATE);
+        deadlines = tasks.findDueOn(DATE);
+    }
+
+    @Benchmark
+    public String firstPage() {
+        return printPage(1);
+    }
+
+    @Benchmark
+    public String lastPage() {
+        return printPage(lastPage);
+    }
+
+    @Benchmark
+    public String foundTasks() throws KiwiException {
+        return ui.showFoundTasks(matches);
+    }
+
+    @Benchmark
+    public String agenda() throws KiwiException {
+        return ui.showAgenda(DATE, events, deadlines);
+    }
+
+    /**
+     * Copies one page out of the list and formats it, as the list command does.
+     */
+    private String printPage(int page) {
+        int from = (page - 1) * PAGE_SIZE;
+        return ui.printPage(tasks.getTasks(from, Math.min(from + PAGE_SIZE, size)), page, PAGE_SIZE, size);
+    }
+}
@@ -0,0 +1,29 @@
+package kiwi;
+
+import javafx.scene.image.Image;
+
+/**
+ * The profile pictures shown next to messages. Each image is decoded once, on first use, and then shared
+ * by every dialog box in every window.
+ */
+enum Avatar {
+    USER("/images/Eyes.png"),
+    KIWI("/images/Kiwi.png");
+
+    private final String resource;
+    private Image image;
+
+    Avatar(String resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * Returns the shared image, loading it the first time it is needed.
+     */
+    synchronized Image getImage() {
+        if (image == null) {
+            image = new Image(Avatar.class.getResourceAsStream(resource));
+        }
+        return image;
+    }
+}
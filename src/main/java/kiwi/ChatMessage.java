@@ -0,0 +1,37 @@
+package kiwi;
+
+/**
+ * Represents one entry in the conversation view: a message from the user or from Kiwi,
+ * or a marker standing in for older or newer messages that are only kept in the transcript.
+ */
+final class ChatMessage {
+    /**
+     * The kinds of entries shown in the conversation view.
+     */
+    enum Kind {
+        USER, KIWI, OLDER, NEWER
+    }
+
+    static final ChatMessage OLDER_MARKER = new ChatMessage(Kind.OLDER, "Loading earlier messages...");
+    static final ChatMessage NEWER_MARKER = new ChatMessage(Kind.NEWER, "Loading later messages...");
+
+    private final Kind kind;
+    private final String text;
+
+    ChatMessage(Kind kind, String text) {
+        this.kind = kind;
+        this.text = text;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    boolean isMarker() {
+        return kind == Kind.OLDER || kind == Kind.NEWER;
+    }
+}
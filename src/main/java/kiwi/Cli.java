@@ -0,0 +1,219 @@
+package kiwi;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import kiwi.exception.KiwiException;
+
+/**
+ * Runs Kiwi without a GUI, reading one command per line from standard input or a script file and writing
+ * the replies to standard output. Meant for migrations and regression runs that replay many commands.
+ * <p>
+ * Usage: {@code java -cp kiwi.jar kiwi.Cli [--data FILE] [--quiet] [--defer-save] [--stats-file FILE]
+ * [--stats-interval SECONDS] [--profile] [--undo-limit N] [SCRIPT]}
+ * <ul>
+ *   <li>{@code --data FILE}: the task file to use, {@code ./data/kiwi.txt} by default.</li>
+ *   <li>{@code --quiet}: do not format or print replies; only errors and a final count are printed.</li>
+ *   <li>{@code --defer-save}: write nothing while the commands run and save the task list once at the end.</li>
+ *   <li>{@code --stats-file FILE}: append the {@code stats} report to this file periodically and on exit.</li>
+ *   <li>{@code --stats-interval SECONDS}: how often to append the report, every 60 seconds by default.</li>
+ *   <li>{@code --profile}: count the memory each kind of command allocates and print it at the end.</li>
+ *   <li>{@code --undo-limit N}: how many commands {@code undo} can take back, 100 by default; 0 turns it off.</li>
+ *   <li>{@code SCRIPT}: read commands from this file instead of standard input.</li>
+ * </ul>
+ * Reading stops at the end of the input or after {@code bye}.
+ */
+public class Cli {
+    private static final String DEFAULT_DATA_PATH = "./data/kiwi.txt";
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long DEFAULT_STATS_INTERVAL_SECONDS = 60;
+    private static final String USAGE = "Usage: kiwi.Cli [--data FILE] [--quiet] [--defer-save] [--stats-file FILE]"
+            + " [--stats-interval SECONDS] [--profile] [--undo-limit N] [SCRIPT]";
+
+    private final Kiwi kiwi;
+    private final boolean isQuiet;
+    private long commandCount;
+    private long errorCount;
+
+    private Cli(Kiwi kiwi, boolean isQuiet) {
+        this.kiwi = kiwi;
+        this.isQuiet = isQuiet;
+    }
+
+    /**
+     * Parses the options, then streams the commands through Kiwi.
+     *
+     * @param args The command-line options, see the class description.
+     */
+    public static void main(String[] args) {
+        String dataPath = DEFAULT_DATA_PATH;
+        String scriptPath = null;
+        boolean isQuiet = false;
+        boolean isSaveDeferred = false;
+        String statsPath = null;
+        long statsInterval = DEFAULT_STATS_INTERVAL_SECONDS;
+        boolean isProfiling = false;
+        int undoLimit = -1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "--data":
+                if (++i == args.length) {
+                    exitWithUsage();
+                }
+                dataPath = args[i];
+                break;
+            case "--quiet":
+                isQuiet = true;
+                break;
+            case "--defer-save":
+                isSaveDeferred = true;
+                break;
+            case "--profile":
+                isProfiling = true;
+                break;
+            case "--stats-file":
+                if (++i == args.length) {
+                    exitWithUsage();
+                }
+                statsPath = args[i];
+                break;
+            case "--stats-interval":
+                if (++i == args.length) {
+                    exitWithUsage();
+                }
+                statsInterval = parseInterval(args[i]);
+                break;
+            case "--undo-limit":
+                if (++i == args.length) {
+                    exitWithUsage();
+                }
+                undoLimit = parseUndoLimit(args[i]);
+                break;
+            default:
+                if (args[i].startsWith("--") || scriptPath != null) {
+                    exitWithUsage();
+                }
+                scriptPath = args[i];
+                break;
+            }
+        }
+
+        Kiwi kiwi = new Kiwi(dataPath);
+        kiwi.setPersistenceDeferred(isSaveDeferred);
+        if (undoLimit >= 0) {
+            kiwi.setUndoLimit(undoLimit);
+        }
+        if (statsPath != null) {
+            kiwi.startStatsDump(statsPath, statsInterval);
+        }
+        if (isProfiling) {
+            try {
+                kiwi.startAllocationProfiling();
+            } catch (UnsupportedOperationException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+        }
+        Cli cli = new Cli(kiwi, isQuiet);
+        try (BufferedReader in = openInput(scriptPath);
+                Writer out = new BufferedWriter(Channels.newWriter(Channels.newChannel(System.out),
+                        StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            boolean hasSaved = cli.run(in, out);
+            if (isSaveDeferred && !hasSaved) {
+                kiwi.save();
+            }
+            if (isQuiet) {
+                out.write(cli.commandCount + " commands, " + cli.errorCount + " errors\n");
+            }
+            if (isProfiling) {
+                out.write(kiwi.getAllocationReport());
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read the commands: " + e.getMessage());
+            System.exit(2);
+        } catch (KiwiException e) {
+            System.err.println("Could not save the tasks: " + e.getMessage());
+            System.exit(2);
+        }
+        kiwi.close();
+    }
+
+    private static BufferedReader openInput(String scriptPath) throws IOException {
+        if (scriptPath == null) {
+            return new BufferedReader(Channels.newReader(Channels.newChannel(System.in), StandardCharsets.UTF_8),
+                    BUFFER_SIZE);
+        }
+        return Files.newBufferedReader(Path.of(scriptPath), StandardCharsets.UTF_8);
+    }
+
+    private static long parseInterval(String text) {
+        try {
+            long seconds = Long.parseLong(text);
+            if (seconds > 0) {
+                return seconds;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the usage message.
+        }
+        exitWithUsage();
+        return 0;
+    }
+
+    private static int parseUndoLimit(String text) {
+        try {
+            int steps = Integer.parseInt(text);
+            if (steps >= 0) {
+                return steps;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the usage message.
+        }
+        exitWithUsage();
+        return 0;
+    }
+
+    private static void exitWithUsage() {
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    /**
+     * Runs every line of the input as a command until the input ends or a command asks to exit.
+     *
+     * @return True if a command asked to exit, which also saves the task list.
+     */
+    private boolean run(BufferedReader in, Writer out) throws IOException {
+        if (!isQuiet) {
+            out.write(kiwi.getGreeting());
+            out.write('\n');
+        }
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            commandCount++;
+            CommandResult result = kiwi.execute(line);
+            if (!result.isSuccess()) {
+                errorCount++;
+            }
+            if (!isQuiet) {
+                out.write(result.getText());
+                out.write('\n');
+            } else if (!result.isSuccess()) {
+                out.write("Command " + commandCount + ": " + result.getText() + "\n");
+            }
+            if (result.isExit()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
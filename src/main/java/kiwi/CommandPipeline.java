@@ -0,0 +1,109 @@
+package kiwi;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs commands on a single background daemon thread, so that callers such as the GUI never wait for
+ * a command to finish.
+ * <p>
+ * All commands go through one worker thread in the order they were submitted, which keeps the task list
+ * single-writer and applies changes in submission order. Each command's reply comes back through a
+ * {@link CompletableFuture}, with its text already rendered on the worker thread. Queries (commands that only
+ * read the task list) can be cancelled while they wait or run; a running query is interrupted and stops at its
+ * next cancellation check. Commands that change the task list are never cancelled.
+ */
+final class CommandPipeline {
+    private final Kiwi kiwi;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kiwi-commands");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object lock = new Object();
+    private final Deque<Command> queued = new ArrayDeque<>();
+    private Command running;
+    private Thread worker;
+
+    CommandPipeline(Kiwi kiwi) {
+        this.kiwi = kiwi;
+    }
+
+    /**
+     * Queues a command behind all commands submitted before it.
+     *
+     * @param input The user's input string containing a command.
+     * @return A future completed with the result, or cancelled if the command was a query that got cancelled.
+     */
+    CompletableFuture<CommandResult> submit(String input) {
+        Command command = new Command(input, kiwi.isQuery(input));
+        synchronized (lock) {
+            queued.addLast(command);
+        }
+        executor.execute(command);
+        return command.future;
+    }
+
+    /**
+     * Cancels every query that is waiting or running. Commands that change the task list still run.
+     */
+    void cancelQueries() {
+        synchronized (lock) {
+            for (Command command : queued) {
+                if (command.isQuery) {
+                    command.future.cancel(false);
+                }
+            }
+            if (running != null && running.isQuery) {
+                running.future.cancel(false);
+                worker.interrupt();
+            }
+        }
+    }
+
+    /**
+     * A submitted command and the future its reply goes to.
+     */
+    private class Command implements Runnable {
+        private final String input;
+        private final boolean isQuery;
+        private final CompletableFuture<CommandResult> future = new CompletableFuture<>();
+
+        Command(String input, boolean isQuery) {
+            this.input = input;
+            this.isQuery = isQuery;
+        }
+
+        @Override
+        public void run() {
+            synchronized (lock) {
+                queued.remove(this);
+                if (future.isCancelled()) {
+                    return;
+                }
+                running = this;
+                worker = Thread.currentThread();
+            }
+            try {
+                CommandResult result = kiwi.execute(input);
+                // Renders while the task list still looks the way the command left it.
+                result.getText();
+                future.complete(result);
+            } catch (CancellationException e) {
+                future.cancel(false);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (lock) {
+                    running = null;
+                    // Clears an interrupt that arrived after the query had finished its last check.
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+}
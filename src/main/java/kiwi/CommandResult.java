@@ -0,0 +1,114 @@
+package kiwi;
+
+import java.util.function.Supplier;
+
+import kiwi.task.Task;
+
+/**
+ * Represents the outcome of one command: whether it succeeded, which task it changed, whether the
+ * application should exit, and the reply to show the user.
+ * <p>
+ * The reply is only formatted when {@link #getText()} is first called, so callers that do not show it
+ * pay nothing for it. The text reflects the task list at that moment; callers that run further commands
+ * before showing a reply should call {@link #getText()} first.
+ */
+public final class CommandResult {
+    /**
+     * Whether a command did what was asked.
+     */
+    public enum Status {
+        SUCCESS, ERROR
+    }
+
+    private final Status status;
+    private final Task affectedTask;
+    private final boolean isExit;
+    private Supplier<String> renderer;
+    private String text;
+
+    private CommandResult(Status status, Task affectedTask, boolean isExit, Supplier<String> renderer) {
+        this.status = status;
+        this.affectedTask = affectedTask;
+        this.isExit = isExit;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Creates the result of a command that did not change any task.
+     *
+     * @param renderer Formats the reply when it is needed.
+     * @return A successful result.
+     */
+    public static CommandResult success(Supplier<String> renderer) {
+        return new CommandResult(Status.SUCCESS, null, false, renderer);
+    }
+
+    /**
+     * Creates the result of a command that added, changed or removed a task.
+     *
+     * @param affectedTask The task that was added, changed or removed.
+     * @param renderer Formats the reply when it is needed.
+     * @return A successful result.
+     */
+    public static CommandResult success(Task affectedTask, Supplier<String> renderer) {
+        return new CommandResult(Status.SUCCESS, affectedTask, false, renderer);
+    }
+
+    /**
+     * Creates the result of a command that ends the session.
+     *
+     * @param renderer Formats the goodbye message when it is needed.
+     * @return A successful result with the exit flag set.
+     */
+    public static CommandResult exit(Supplier<String> renderer) {
+        return new CommandResult(Status.SUCCESS, null, true, renderer);
+    }
+
+    /**
+     * Creates the result of a command that failed.
+     *
+     * @param text The error message shown to the user.
+     * @return A failed result.
+     */
+    public static CommandResult error(String text) {
+        return new CommandResult(Status.ERROR, null, false, () -> text);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns whether the command succeeded.
+     */
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    /**
+     * Returns the task that was added, changed or removed, or null if the command did not change a task.
+     */
+    public Task getAffectedTask() {
+        return affectedTask;
+    }
+
+    /**
+     * Returns whether the application should exit after showing this result.
+     */
+    public boolean isExit() {
+        return isExit;
+    }
+
+    /**
+     * Returns the reply, formatting it on the first call.
+     *
+     * @return The text to show the user.
+     */
+    public String getText() {
+        if (text == null) {
+            text = renderer.get();
+            renderer = null;
+        }
+        return text;
+    }
+}
@@ -0,0 +1,161 @@
+package kiwi;
+
+import java.io.IOException;
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * Holds the part of the conversation that the conversation view currently shows.
+ * <p>
+ * Every message is written to a {@link Transcript}, but only a window of at most {@code maxMessages}
+ * consecutive messages is kept in memory. Markers at either end of the window stand for the messages
+ * outside it; the view asks for another page of them when a marker scrolls into sight. If the transcript
+ * cannot be written, spilling is switched off and the whole conversation stays in memory.
+ */
+final class ConversationHistory {
+    private final ObservableList<ChatMessage> items = FXCollections.observableArrayList();
+    private final int maxMessages;
+    private final int pageSize;
+    private Transcript transcript;
+    private int windowStart;
+    private int windowEnd;
+
+    /**
+     * Creates a history that spills to the given transcript.
+     *
+     * @param transcript The transcript holding every message, or null to keep everything in memory.
+     * @param maxMessages The maximum number of messages kept in memory.
+     * @param pageSize The number of messages loaded when a marker scrolls into sight.
+     */
+    ConversationHistory(Transcript transcript, int maxMessages, int pageSize) {
+        this.transcript = transcript;
+        this.maxMessages = maxMessages;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the entries to show, including the markers at either end.
+     */
+    ObservableList<ChatMessage> getItems() {
+        return items;
+    }
+
+    /**
+     * Adds a new message at the end of the conversation. If the view had scrolled back far enough that
+     * the latest messages were dropped, the window first jumps back to the end.
+     *
+     * @param message The user or Kiwi message.
+     */
+    void append(ChatMessage message) {
+        if (transcript == null) {
+            items.add(message);
+            return;
+        }
+        try {
+            transcript.append(message);
+        } catch (IOException e) {
+            System.err.println("Could not write the transcript, keeping the conversation in memory: "
+                    + e.getMessage());
+            keepInMemory();
+            items.add(message);
+            return;
+        }
+        if (windowEnd < transcript.size() - 1) {
+            int total = transcript.size();
+            showWindow(Math.max(0, total - maxMessages), total);
+            return;
+        }
+        items.add(items.size(), message);
+        windowEnd++;
+        if (windowEnd - windowStart > maxMessages) {
+            items.remove(firstMessageIndex());
+            windowStart++;
+            if (windowStart == 1) {
+                items.add(0, ChatMessage.OLDER_MARKER);
+            }
+        }
+    }
+
+    /**
+     * Loads the page of messages before the window, dropping messages at the far end to stay bounded.
+     *
+     * @return The number of entries inserted in front of the first message that was shown before.
+     */
+    int loadOlder() {
+        if (transcript == null || windowStart == 0) {
+            return 0;
+        }
+        int from = Math.max(0, windowStart - pageSize);
+        int loaded = windowStart - from;
+        showWindow(from, Math.min(windowEnd, from + maxMessages));
+        return loaded + firstMessageIndex();
+    }
+
+    /**
+     * Loads the page of messages after the window, dropping messages at the far end to stay bounded.
+     */
+    void loadNewer() {
+        if (transcript == null || windowEnd == transcript.size()) {
+            return;
+        }
+        int to = Math.min(transcript.size(), windowEnd + pageSize);
+        showWindow(Math.max(windowStart, to - maxMessages), to);
+    }
+
+    private void showWindow(int from, int to) {
+        List<ChatMessage> messages;
+        try {
+            messages = transcript.read(from, to);
+        } catch (IOException e) {
+            System.err.println("Could not read the transcript: " + e.getMessage());
+            return;
+        }
+        windowStart = from;
+        windowEnd = to;
+        if (from > 0) {
+            messages.add(0, ChatMessage.OLDER_MARKER);
+        }
+        if (to < transcript.size()) {
+            messages.add(ChatMessage.NEWER_MARKER);
+        }
+        items.setAll(messages);
+    }
+
+    private int firstMessageIndex() {
+        return windowStart > 0 ? 1 : 0;
+    }
+
+    private void keepInMemory() {
+        try {
+            List<ChatMessage> messages = transcript.read(0, windowStart);
+            if (windowStart > 0) {
+                items.set(0, messages.get(0));
+                items.addAll(1, messages.subList(1, messages.size()));
+            }
+            if (windowEnd < transcript.size()) {
+                items.remove(items.size() - 1);
+                items.addAll(transcript.read(windowEnd, transcript.size()));
+            }
+        } catch (IOException e) {
+            items.removeAll(ChatMessage.OLDER_MARKER, ChatMessage.NEWER_MARKER);
+        }
+        closeTranscript();
+    }
+
+    /**
+     * Closes the transcript. The history keeps working, but holds every later message in memory.
+     */
+    void closeTranscript() {
+        if (transcript == null) {
+            return;
+        }
+        try {
+            transcript.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the transcript: " + e.getMessage());
+        }
+        transcript = null;
+    }
+}
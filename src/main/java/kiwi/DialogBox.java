@@ -1,59 +1,106 @@
 package kiwi;
 
-import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import kiwi.metrics.DialogBoxEvent;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's face
  * and a label containing text from the speaker.
+ * <p>
+ * The layout is built in code rather than loaded from FXML, since parsing the FXML file for every message
+ * was the largest cost on the UI thread. Released dialog boxes are kept in a small pool per speaker and
+ * handed out again by {@link #acquire(boolean)}. Dialog boxes must only be used on the JavaFX thread.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final double PICTURE_SIZE = 99.0;
+    private static final double PREF_WIDTH = 400.0;
+    private static final Insets PADDING = new Insets(15.0, 5.0, 15.0, 5.0);
+    private static final int MAX_POOLED = 32;
+
+    private static final Deque<DialogBox> USER_POOL = new ArrayDeque<>();
+    private static final Deque<DialogBox> KIWI_POOL = new ArrayDeque<>();
+
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
+    private final boolean isKiwi;
 
     /**
-     * Constructs a DialogBox with the specified text and image.
-     * The DialogBox is loaded from an FXML file and the text and image
-     * are set based on the provided parameters.
+     * Constructs an empty DialogBox for one of the two speakers.
+     * Kiwi's dialog box shows the image on the left and text on the right; the user's is the other way round.
      *
-     * @param text The text to display in the dialog.
-     * @param img The image to display in the ImageView (typically representing the speaker).
+     * @param isKiwi Whether the dialog box shows Kiwi's messages.
      */
-    private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
+    private DialogBox(boolean isKiwi) {
+        this.isKiwi = isKiwi;
+        dialog.setWrapText(true);
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPrefWidth(PREF_WIDTH);
+        setPadding(PADDING);
+        if (isKiwi) {
+            setAlignment(Pos.TOP_LEFT);
+            getChildren().addAll(displayPicture, dialog);
+        } else {
+            setAlignment(Pos.TOP_RIGHT);
+            getChildren().addAll(dialog, displayPicture);
         }
+    }
 
-        dialog.setText(text);
-        displayPicture.setImage(img);
+    /**
+     * Returns a dialog box for the given speaker, reusing a released one if there is any.
+     *
+     * @param isKiwi Whether the dialog box shows Kiwi's messages.
+     * @return An unused DialogBox; its text and image still have to be set.
+     */
+    static DialogBox acquire(boolean isKiwi) {
+        DialogBoxEvent event = new DialogBoxEvent();
+        event.begin();
+        DialogBox pooled = (isKiwi ? KIWI_POOL : USER_POOL).pollFirst();
+        DialogBox dialogBox = pooled != null ? pooled : new DialogBox(isKiwi);
+        event.finish(isKiwi, pooled != null);
+        return dialogBox;
     }
 
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
+     * Returns this dialog box to the pool. It must not be shown anywhere after this call.
      */
-    private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
+    void release() {
+        Deque<DialogBox> pool = isKiwi ? KIWI_POOL : USER_POOL;
+        prefWidthProperty().unbind();
+        setPrefWidth(PREF_WIDTH);
+        dialog.setText(null);
+        if (pool.size() < MAX_POOLED) {
+            pool.addFirst(this);
+        }
+    }
+
+    /**
+     * Replaces the text and image, so that a dialog box can be reused for another message of the same speaker.
+     *
+     * @param text The text to display in the dialog.
+     * @param img The image to display in the ImageView.
+     */
+    void setContent(String text, Image img) {
+        dialog.setText(text);
+        displayPicture.setImage(img);
+    }
+
+    boolean isKiwi() {
+        return isKiwi;
     }
 
     /**
@@ -61,25 +108,25 @@ public class DialogBox extends HBox {
      *
      * @param text The user's input text.
      * @param img  The user's profile image.
-     * @return A new DialogBox representing the user dialog.
+     * @return A DialogBox representing the user dialog.
      */
     public static DialogBox getUserDialog(String text, Image img) {
-        return new DialogBox(text, img);
+        DialogBox db = acquire(false);
+        db.setContent(text, img);
+        return db;
     }
 
     /**
      * Creates a dialog box for the Kiwi chatbot, with the specified text and image.
-     * The dialog box is flipped so that the image appears on the left, distinguishing
-     * it from the user's dialog.
+     * The image appears on the left, distinguishing it from the user's dialog.
      *
      * @param text The chatbot's response text.
      * @param img  The chatbot's profile image.
-     * @return A new DialogBox representing the Kiwi chatbot dialog.
+     * @return A DialogBox representing the Kiwi chatbot dialog.
      */
     public static DialogBox getKiwiDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.flip();
+        DialogBox db = acquire(true);
+        db.setContent(text, img);
         return db;
     }
 }
-
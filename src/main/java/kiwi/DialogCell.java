@@ -0,0 +1,76 @@
+package kiwi;
+
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+/**
+ * Shows one entry of the conversation view. The list view only creates as many cells as fit on screen
+ * and reuses them while scrolling. Each cell holds at most one {@link DialogBox} and only swaps its text,
+ * trading it in at the pool when the next entry is from the other speaker.
+ */
+final class DialogCell extends ListCell<ChatMessage> {
+    private static final double SCROLL_BAR_ALLOWANCE = 20;
+
+    private final ListView<ChatMessage> listView;
+    private final Runnable onOlderShown;
+    private final Runnable onNewerShown;
+    private DialogBox dialogBox;
+    private Label marker;
+
+    /**
+     * Creates a cell for the given conversation view.
+     *
+     * @param listView The list view the cell belongs to, whose width the dialog boxes follow.
+     * @param onOlderShown Called when the marker for older messages scrolls into sight.
+     * @param onNewerShown Called when the marker for newer messages scrolls into sight.
+     */
+    DialogCell(ListView<ChatMessage> listView, Runnable onOlderShown, Runnable onNewerShown) {
+        this.listView = listView;
+        this.onOlderShown = onOlderShown;
+        this.onNewerShown = onNewerShown;
+        // Lets the cell shrink to the list's width, so that long replies wrap instead of scrolling sideways.
+        setPrefWidth(0);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+        setText(null);
+        if (isEmpty || message == null) {
+            releaseDialogBox();
+            setGraphic(null);
+            return;
+        }
+        if (!message.isMarker()) {
+            boolean isKiwi = message.getKind() == ChatMessage.Kind.KIWI;
+            if (dialogBox != null && dialogBox.isKiwi() != isKiwi) {
+                releaseDialogBox();
+            }
+            if (dialogBox == null) {
+                dialogBox = DialogBox.acquire(isKiwi);
+                dialogBox.prefWidthProperty().bind(listView.widthProperty().subtract(SCROLL_BAR_ALLOWANCE));
+            }
+            dialogBox.setContent(message.getText(), (isKiwi ? Avatar.KIWI : Avatar.USER).getImage());
+            setGraphic(dialogBox);
+            return;
+        }
+        releaseDialogBox();
+        if (marker == null) {
+            marker = new Label();
+        }
+        marker.setText(message.getText());
+        setGraphic(marker);
+        // Loading changes the list's items, which must not happen while the cell is being laid out.
+        Platform.runLater(message.getKind() == ChatMessage.Kind.OLDER ? onOlderShown : onNewerShown);
+    }
+
+    private void releaseDialogBox() {
+        if (dialogBox != null) {
+            setGraphic(null);
+            dialogBox.release();
+            dialogBox = null;
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package kiwi;
 
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
+import kiwi.command.CommandRegistry;
+import kiwi.command.CommandType;
 import kiwi.command.Parser;
 import kiwi.command.TaskList;
 import kiwi.exception.KiwiException;
+import kiwi.metrics.AllocationProfiler;
+import kiwi.metrics.CommandEvent;
+import kiwi.metrics.Metrics;
+import kiwi.metrics.StatsDumper;
+import kiwi.storage.SnapshotFormat;
 import kiwi.storage.Storage;
 import kiwi.task.Deadline;
 import kiwi.task.Event;
@@ -17,29 +30,130 @@ import kiwi.ui.Ui;
  * The Kiwi class represents the main controller for the Kiwi task management application.
  * It handles user input, processes commands, and updates the task list accordingly.
  */
-public class Kiwi {
+public class Kiwi implements AutoCloseable {
+    private static final int DEFAULT_UPCOMING_COUNT = 5;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    // A script is itself one batch, so it cannot end, open or step around batches, or end the session.
+    private static final EnumSet<CommandType> SCRIPT_EXCLUDED_COMMANDS = EnumSet.of(CommandType.BEGIN,
+            CommandType.COMMIT, CommandType.ROLLBACK, CommandType.BYE, CommandType.UNDO, CommandType.REDO);
+    // Only a failed change takes an open batch down with it; misused control commands and bad queries do not.
+    private static final EnumSet<CommandType> BATCH_MUTATIONS = EnumSet.of(CommandType.MARK, CommandType.UNMARK,
+            CommandType.DELETE, CommandType.TODO, CommandType.DEADLINE, CommandType.EVENT, CommandType.EDIT);
+
     private final Ui ui;
     private final Storage storage;
+    private final Metrics metrics = new Metrics();
+    private final Thread shutdownHook = new Thread(this::flushStorage, "kiwi-shutdown");
+    private StatsDumper statsDumper;
+    private AllocationProfiler allocationProfiler;
     private TaskList tasks;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private int nextListPage = 1;
+    private Batch batch;
+    private boolean isPersistenceDeferred = false;
     private boolean hasError = false;
     private String loadErrorMessage = "";
 
     /**
      * Constructs a Kiwi instance, initializing the UI, storage, and task list.
-     * Attempts to load tasks from the specified file path.
+     * Attempts to load tasks from the specified file path. Task files are kept in the binary
+     * snapshot format; an existing text file is converted on first load.
      *
      * @param filePath The file path to load the task list from.
      */
     public Kiwi(String filePath) {
         ui = new Ui();
         storage = new Storage(filePath);
+        storage.setSnapshotFormat(SnapshotFormat.BINARY);
+        storage.setMetrics(metrics);
         try {
-            tasks = new TaskList(storage.load());
+            tasks = new TaskList(storage.load(), storage.getNextId());
         } catch (KiwiException e) {
             hasError = true;
             loadErrorMessage = ui.showLoadingError();
             tasks = new TaskList();
         }
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Writes out any journal records still queued, closes the task file and stops the background threads.
+     * Hosts call this once they are done with this Kiwi; a Kiwi that is never closed is closed when the JVM
+     * shuts down. Closing again does nothing, and no commands may be run afterwards.
+     */
+    @Override
+    public void close() {
+        try {
+            if (!Runtime.getRuntime().removeShutdownHook(shutdownHook)) {
+                return;
+            }
+        } catch (IllegalStateException e) {
+            // The JVM is already shutting down, and the hook will close the storage.
+            return;
+        }
+        flushStorage();
+    }
+
+    /**
+     * Writes out any journal records still queued for the background writer and closes the storage.
+     * Runs from {@link #close()}, or when the JVM shuts down, so that mutations acknowledged to the user are
+     * not lost.
+     */
+    private void flushStorage() {
+        if (statsDumper != null) {
+            statsDumper.stop();
+        }
+        try {
+            storage.close();
+        } catch (KiwiException e) {
+            System.err.println(ui.showError(e.getMessage()));
+        }
+    }
+
+    /**
+     * Starts appending the {@code stats} report to a file at a fixed interval. A last report is written
+     * when the JVM shuts down.
+     *
+     * @param filePath The file to append reports to.
+     * @param intervalSeconds The time between reports, in seconds.
+     */
+    public void startStatsDump(String filePath, long intervalSeconds) {
+        if (statsDumper != null) {
+            throw new IllegalStateException("Stats are already being written");
+        }
+        statsDumper = new StatsDumper(Path.of(filePath), () -> ui.showStats(metrics, tasks.snapshot()));
+        statsDumper.start(intervalSeconds);
+    }
+
+    /**
+     * Starts counting the bytes each command allocates, for {@link #getAllocationReport()}. While profiling,
+     * replies are formatted as soon as a command finishes so that their allocations are counted with it.
+     *
+     * @throws UnsupportedOperationException If this JVM cannot count allocations per thread.
+     */
+    public void startAllocationProfiling() {
+        if (allocationProfiler == null) {
+            allocationProfiler = AllocationProfiler.create();
+        }
+    }
+
+    /**
+     * Returns the bytes allocated per command type since {@link #startAllocationProfiling()} was called.
+     *
+     * @return A formatted report, or a note that profiling is off.
+     */
+    public String getAllocationReport() {
+        if (allocationProfiler == null) {
+            return "Allocation profiling is off.";
+        }
+        return ui.showAllocations(allocationProfiler);
+    }
+
+    /**
+     * Returns whether a batch has been begun and not yet committed or rolled back.
+     */
+    public boolean isInBatch() {
+        return batch != null;
     }
 
     /**
@@ -55,129 +169,550 @@ public class Kiwi {
         return greeting;
     }
 
+    /**
+     * Returns whether the input is a query, i.e. a command that only reads the task list and can therefore
+     * be cancelled without leaving anything half done.
+     *
+     * @param input The user's input string containing a command.
+     * @return True if the command only reads the task list.
+     */
+    public boolean isQuery(String input) {
+        CommandType type = CommandRegistry.lookup(input);
+        return type != null && type.isQuery();
+    }
+
     /**
      * Processes the user's input and returns the appropriate response based on the command.
+     * Thin adapter over {@link #execute(String)} for callers that only want the reply text.
      *
      * @param input The user's input string containing a command.
      * @return The response message to be displayed.
      */
     public String getResponse(String input) {
+        return execute(input).getText();
+    }
+
+    /**
+     * Processes the user's input and returns the outcome of the command. The reply text is only formatted
+     * when the result's {@link CommandResult#getText()} is called.
+     *
+     * @param input The user's input string containing a command.
+     * @return The result of the command.
+     */
+    public CommandResult execute(String input) {
+        long start = System.nanoTime();
+        long allocatedBefore = allocationProfiler == null ? 0 : allocationProfiler.getAllocatedBytes();
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        CommandType type = CommandRegistry.lookup(input);
+        CommandResult result;
         try {
-            String[] parts = input.split(" ", 2);
-            String command = parts[0].toLowerCase();
-            String arguments = parts.length > 1 ? parts[1] : "";
-
-            switch (command) {
-            case "bye":
-                return handleBye();
-            case "list":
-                return handleList();
-            case "mark":
-                return handleMark(arguments);
-            case "unmark":
-                return handleUnmark(arguments);
-            case "delete":
-                return handleDelete(arguments);
-            case "todo":
-                return handleTodo(arguments);
-            case "deadline":
-                return handleDeadline(arguments);
-            case "event":
-                return handleEvent(arguments);
-            case "find":
-                return handleFind(arguments);
-            case "edit":
-                return handleEdit(arguments);
-            default:
-                throw new KiwiException("I don't understand that command!");
+            result = dispatch(type, input);
+        } catch (KiwiException e) {
+            if (batch != null && BATCH_MUTATIONS.contains(type)) {
+                rollbackBatch();
+                result = CommandResult.error(ui.showBatchRolledBack(e.getMessage()));
+            } else {
+                result = CommandResult.error(ui.showError(e.getMessage()));
             }
+        }
+        if (batch == null) {
+            // Every command outside a batch is one step for undo; a batch becomes one when it is committed.
+            tasks.checkpoint();
+        }
+        event.finish(type, input, result.isSuccess(), tasks.size());
+        metrics.recordCommand(type, System.nanoTime() - start, result.isSuccess());
+        if (allocationProfiler != null) {
+            result.getText();
+            allocationProfiler.record(type, allocationProfiler.getAllocatedBytes() - allocatedBefore);
+        }
+        return result;
+    }
+
+    /**
+     * Runs a multi-line script as one batch: either every command in it takes effect and the task list is
+     * saved once at the end, or the first failing command rolls the whole script back.
+     * Blank lines and lines starting with '#' are skipped. A script may not contain {@code begin},
+     * {@code commit}, {@code rollback}, {@code undo}, {@code redo} or {@code bye}.
+     *
+     * @param lines The commands to run, one per line.
+     * @return The result of committing the batch, or an error naming the line that failed.
+     */
+    public CommandResult executeScript(List<String> lines) {
+        if (batch != null) {
+            return CommandResult.error(ui.showError("Please commit or roll back the current batch first!"));
+        }
+        beginBatch();
+        int lineNumber = 0;
+        for (String line : lines) {
+            lineNumber++;
+            String command = line.strip();
+            if (command.isEmpty() || command.startsWith("#")) {
+                continue;
+            }
+            try {
+                CommandType type = CommandRegistry.lookup(command);
+                if (SCRIPT_EXCLUDED_COMMANDS.contains(type)) {
+                    throw new KiwiException("A script runs as one batch, so it cannot use " + type.getKeyword() + "!");
+                }
+                dispatch(type, command);
+            } catch (KiwiException e) {
+                rollbackBatch();
+                return CommandResult.error(ui.showBatchRolledBack("Line " + lineNumber + ": " + e.getMessage()));
+            }
+        }
+        try {
+            return commitBatch();
         } catch (KiwiException e) {
-            return ui.showError(e.getMessage());
+            return CommandResult.error(ui.showBatchRolledBack(e.getMessage()));
         }
     }
 
-    private String handleBye() throws KiwiException {
-        storage.save(tasks.getAllTasks());
-        return ui.showGoodbye();
+    private CommandResult dispatch(CommandType type, String input) throws KiwiException {
+        if (type == null) {
+            throw new KiwiException("I don't understand that command!");
+        }
+        String arguments = CommandRegistry.argumentsOf(input);
+
+        switch (type) {
+        case BYE:
+            return handleBye();
+        case LIST:
+            return handleList(arguments);
+        case MARK:
+            return handleMark(arguments);
+        case UNMARK:
+            return handleUnmark(arguments);
+        case DELETE:
+            return handleDelete(arguments);
+        case TODO:
+            return handleTodo(arguments);
+        case DEADLINE:
+            return handleDeadline(arguments);
+        case EVENT:
+            return handleEvent(arguments);
+        case FIND:
+            return handleFind(arguments);
+        case EDIT:
+            return handleEdit(arguments);
+        case DUE:
+            return handleDue(arguments);
+        case OVERDUE:
+            return handleOverdue();
+        case UPCOMING:
+            return handleUpcoming(arguments);
+        case AGENDA:
+            return handleAgenda(arguments);
+        case BEGIN:
+            return handleBegin();
+        case COMMIT:
+            return handleCommit();
+        case ROLLBACK:
+            return handleRollback();
+        case UNDO:
+            return handleUndo(arguments);
+        case REDO:
+            return handleRedo(arguments);
+        case STATS:
+            return handleStats();
+        default:
+            throw new KiwiException("I don't understand that command!");
+        }
     }
 
-    private String handleList() throws KiwiException {
-        return ui.printTasks(tasks);
+    /**
+     * Formats a reply on demand. Formatting only fails if the task list changed in between, in which case
+     * the error is shown instead.
+     */
+    private Supplier<String> render(Rendering rendering) {
+        return () -> {
+            try {
+                return rendering.render();
+            } catch (KiwiException e) {
+                return ui.showError(e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Formats a reply, possibly reading tasks from the task list.
+     */
+    @FunctionalInterface
+    private interface Rendering {
+        String render() throws KiwiException;
+    }
+
+    /**
+     * Turns deferred persistence on or off. While it is on, changes are not written to the journal at all;
+     * the caller saves the whole task list once with {@link #save()}. Meant for replaying large command
+     * streams, where one snapshot at the end is much cheaper than a journal record per command.
+     *
+     * @param isDeferred Whether to stop writing each change as it happens.
+     */
+    public void setPersistenceDeferred(boolean isDeferred) {
+        isPersistenceDeferred = isDeferred;
     }
 
-    private String handleMark(String arguments) throws KiwiException {
-        int index = Parser.parseIndex(arguments, tasks.size());
-        tasks.markTask(index);
-        storage.save(tasks.getAllTasks());
-        return ui.showMarkMessage(tasks.getTask(index));
+    /**
+     * Sets how many commands {@code undo} can take back. Older steps are forgotten first.
+     *
+     * @param steps The number of commands (or committed batches) to remember; 0 turns undo off.
+     */
+    public void setUndoLimit(int steps) {
+        tasks.setHistoryLimit(steps);
     }
 
-    private String handleUnmark(String arguments) throws KiwiException {
-        int index = Parser.parseIndex(arguments, tasks.size());
-        tasks.unmarkTask(index);
-        storage.save(tasks.getAllTasks());
-        return ui.showUnmarkMessage(tasks.getTask(index));
+    /**
+     * Saves the whole task list to the task file.
+     *
+     * @throws KiwiException If the file cannot be written.
+     */
+    public void save() throws KiwiException {
+        TaskList.Snapshot snapshot = tasks.snapshot();
+        storage.save(snapshot.getTasks(), snapshot.getNextId());
     }
 
-    private String handleDelete(String arguments) throws KiwiException {
-        int index = Parser.parseIndex(arguments, tasks.size());
+    /**
+     * Writes a mutation to the journal, unless a batch is in progress or persistence is deferred: a batch
+     * is saved as a whole when it is committed, and deferred changes when {@link #save()} is called.
+     * If writing fails, the command's changes are taken back so that the task list still matches the file.
+     */
+    private void journal(JournalStep step) throws KiwiException {
+        journal(step, tasks::revertToCheckpoint);
+    }
+
+    /**
+     * Writes a mutation to the journal like {@link #journal(JournalStep)}, taking the command's changes back
+     * with {@code revert} if writing fails.
+     */
+    private void journal(JournalStep step, Runnable revert) throws KiwiException {
+        if (batch == null && !isPersistenceDeferred) {
+            try {
+                step.run();
+            } catch (KiwiException e) {
+                revert.run();
+                throw e;
+            }
+        } else if (batch != null) {
+            batch.changeCount++;
+        }
+    }
+
+    /**
+     * Saves a command that changed many tasks at once. A few changes get a journal record each, like single-task
+     * commands; once that costs more than a snapshot of the whole list (the cutoff TaskList uses to choose
+     * between changing tasks one at a time and rebuilding), the list is saved the way a batch is. If saving
+     * fails, the command's changes are taken back so that the task list still matches the file. Inside a batch,
+     * or while persistence is deferred, nothing is saved.
+     *
+     * @param changeCount The number of tasks the command changed.
+     * @return The same number, for the command's reply.
+     */
+    private int persistBulk(int changeCount) throws KiwiException {
+        if (batch != null) {
+            batch.changeCount += changeCount;
+        } else if (!isPersistenceDeferred && changeCount > 0) {
+            try {
+                if (tasks.isCheaperOneByOne(changeCount)) {
+                    journalChanges(tasks.getPendingChanges());
+                } else {
+                    save();
+                }
+            } catch (KiwiException e) {
+                tasks.revertToCheckpoint();
+                throw e;
+            }
+        }
+        return changeCount;
+    }
+
+    /**
+     * Writes one mutation to the journal.
+     */
+    @FunctionalInterface
+    private interface JournalStep {
+        void run() throws KiwiException;
+    }
+
+    private CommandResult handleBegin() throws KiwiException {
+        if (batch != null) {
+            throw new KiwiException("A batch is already in progress!");
+        }
+        beginBatch();
+        return CommandResult.success(ui::showBatchStarted);
+    }
+
+    private CommandResult handleCommit() throws KiwiException {
+        if (batch == null) {
+            throw new KiwiException("There is no batch to commit! Start one with: begin");
+        }
+        return commitBatch();
+    }
+
+    private CommandResult handleRollback() throws KiwiException {
+        if (batch == null) {
+            throw new KiwiException("There is no batch to roll back! Start one with: begin");
+        }
+        rollbackBatch();
+        return CommandResult.success(ui::showBatchDiscarded);
+    }
+
+    private void beginBatch() {
+        batch = new Batch();
+    }
+
+    /**
+     * Saves the task list once for the whole batch. If saving fails, the batch is rolled back so that
+     * the task list still matches the file.
+     */
+    private CommandResult commitBatch() throws KiwiException {
+        int changeCount = batch.changeCount;
+        try {
+            save();
+        } catch (KiwiException e) {
+            rollbackBatch();
+            throw e;
+        }
+        batch = null;
+        tasks.checkpoint();
+        int size = tasks.size();
+        return CommandResult.success(() -> ui.showBatchCommitted(changeCount, size));
+    }
+
+    /**
+     * Takes the task list back to where it was when the batch began. Nothing was written for the batch
+     * yet, so the file needs no change.
+     */
+    private void rollbackBatch() {
+        tasks.revertToCheckpoint();
+        batch = null;
+    }
+
+    /**
+     * Counts the changes made in a batch. The task list itself remembers where the batch began: its last
+     * checkpoint.
+     */
+    private static class Batch {
+        private int changeCount;
+    }
+
+    private CommandResult handleUndo(String arguments) throws KiwiException {
+        int count = Parser.parseCount(arguments, 1);
+        if (batch != null) {
+            throw new KiwiException("Please commit or roll back the batch before undoing!");
+        }
+        int redoStepCount = tasks.getRedoStepCount();
+        List<TaskList.Change> changes = tasks.undo(count);
+        if (changes.isEmpty()) {
+            throw new KiwiException("There is nothing to undo!");
+        }
+        int undoneSteps = tasks.getRedoStepCount() - redoStepCount;
+        journal(() -> journalChanges(changes), () -> tasks.redo(undoneSteps));
+        int size = tasks.size();
+        return CommandResult.success(() -> ui.showUndoMessage(changes, size));
+    }
+
+    private CommandResult handleRedo(String arguments) throws KiwiException {
+        int count = Parser.parseCount(arguments, 1);
+        if (batch != null) {
+            throw new KiwiException("Please commit or roll back the batch before redoing!");
+        }
+        int undoStepCount = tasks.getUndoStepCount();
+        List<TaskList.Change> changes = tasks.redo(count);
+        if (changes.isEmpty()) {
+            throw new KiwiException("There is nothing to redo!");
+        }
+        int redoneSteps = tasks.getUndoStepCount() - undoStepCount;
+        journal(() -> journalChanges(changes), () -> tasks.undo(redoneSteps));
+        int size = tasks.size();
+        return CommandResult.success(() -> ui.showRedoMessage(changes, size));
+    }
+
+    /**
+     * Writes the changes made by undo, redo or a bulk command to the journal, one record per change, in the
+     * order they were made.
+     */
+    private void journalChanges(List<TaskList.Change> changes) throws KiwiException {
+        for (TaskList.Change change : changes) {
+            if (change.getRemovedTask() == null) {
+                storage.appendInsert(change.getIndex(), change.getAddedTask());
+            } else if (change.getAddedTask() == null) {
+                storage.appendDelete(change.getIndex());
+            } else {
+                storage.appendReplace(change.getIndex(), change.getAddedTask());
+            }
+        }
+    }
+
+    private CommandResult handleStats() {
+        TaskList.Snapshot snapshot = tasks.snapshot();
+        return CommandResult.success(() -> ui.showStats(metrics, snapshot));
+    }
+
+    private CommandResult handleBye() throws KiwiException {
+        if (batch != null) {
+            throw new KiwiException("Please commit or roll back the batch before leaving!");
+        }
+        save();
+        return CommandResult.exit(ui::showGoodbye);
+    }
+
+    private CommandResult handleList(String arguments) throws KiwiException {
+        String[] parts = arguments.trim().split(" ", 2);
+        String option = parts[0].toLowerCase();
+        String value = parts.length > 1 ? parts[1] : "";
+        int page;
+        switch (option) {
+        case "":
+            page = 1;
+            break;
+        case "next":
+            page = nextListPage;
+            break;
+        case "page":
+            page = Parser.parseCount(value, 1);
+            break;
+        case "size":
+            pageSize = Parser.parseCount(value, DEFAULT_PAGE_SIZE);
+            page = 1;
+            break;
+        default:
+            throw new KiwiException("Invalid list format! Use: list [next | page <number> | size <number>]");
+        }
+        return showPage(page, option.equals("next"));
+    }
+
+    private CommandResult showPage(int page, boolean isNext) throws KiwiException {
+        int pageCount = Math.max(1, Ui.countPages(tasks.size(), pageSize));
+        if (page > pageCount) {
+            nextListPage = 1;
+            throw new KiwiException(isNext
+                    ? "That's the end of your list! Type 'list' to start from the top."
+                    : "There is no page " + page + "! Your list has " + pageCount + " pages.");
+        }
+        nextListPage = page + 1;
+        int shownPageSize = pageSize;
+        int size = tasks.size();
+        int from = (page - 1) * shownPageSize;
+        List<Task> pageTasks = tasks.getTasks(from, Math.min(from + shownPageSize, size));
+        return CommandResult.success(() -> ui.printPage(pageTasks, page, shownPageSize, size));
+    }
+
+    private CommandResult handleMark(String arguments) throws KiwiException {
+        if (Parser.isTaskSelection(arguments)) {
+            int[] indices = Parser.parseTaskSelection(arguments, tasks);
+            int markedCount = persistBulk(tasks.markTasks(indices).size());
+            return CommandResult.success(() -> ui.showBulkMarkMessage(markedCount, indices.length));
+        }
+        int index = Parser.parseTaskReference(arguments, tasks);
+        Task task = tasks.markTask(index);
+        journal(() -> storage.appendMark(index));
+        return CommandResult.success(task, () -> ui.showMarkMessage(task));
+    }
+
+    private CommandResult handleUnmark(String arguments) throws KiwiException {
+        if (Parser.isTaskSelection(arguments)) {
+            int[] indices = Parser.parseTaskSelection(arguments, tasks);
+            int unmarkedCount = persistBulk(tasks.unmarkTasks(indices).size());
+            return CommandResult.success(() -> ui.showBulkUnmarkMessage(unmarkedCount, indices.length));
+        }
+        int index = Parser.parseTaskReference(arguments, tasks);
+        Task task = tasks.unmarkTask(index);
+        journal(() -> storage.appendUnmark(index));
+        return CommandResult.success(task, () -> ui.showUnmarkMessage(task));
+    }
+
+    private CommandResult handleDelete(String arguments) throws KiwiException {
+        if (Parser.isTaskSelection(arguments)) {
+            int removedCount = persistBulk(tasks.deleteTasks(Parser.parseTaskSelection(arguments, tasks)).size());
+            int size = tasks.size();
+            return CommandResult.success(() -> ui.showBulkDeleteMessage(removedCount, size));
+        }
+        int index = Parser.parseTaskReference(arguments, tasks);
         Task removedTask = tasks.deleteTask(index);
-        storage.save(tasks.getAllTasks());
-        return ui.showDeleteMessage(removedTask, tasks.size());
+        journal(() -> storage.appendDelete(index));
+        int size = tasks.size();
+        return CommandResult.success(removedTask, () -> ui.showDeleteMessage(removedTask, size));
     }
 
-    private String handleTodo(String arguments) throws KiwiException {
+    private CommandResult handleTodo(String arguments) throws KiwiException {
         if (arguments.isEmpty()) {
             throw new KiwiException("Todo description cannot be empty!");
         }
         Task task = new Todo(arguments);
         tasks.addTask(task);
-        storage.save(tasks.getAllTasks());
-        return ui.showAddMessage(task, tasks.size());
+        journal(() -> storage.appendAdd(task));
+        int size = tasks.size();
+        return CommandResult.success(task, () -> ui.showAddMessage(task, size));
     }
 
-    private String handleDeadline(String arguments) throws KiwiException {
+    private CommandResult handleDeadline(String arguments) throws KiwiException {
         String[] parts = Parser.parseDeadlineArgs(arguments);
         try {
             Task task = new Deadline(parts[0], parts[1]);
             tasks.addTask(task);
-            storage.save(tasks.getAllTasks());
-            return ui.showAddMessage(task, tasks.size());
+            journal(() -> storage.appendAdd(task));
+            int size = tasks.size();
+            return CommandResult.success(task, () -> ui.showAddMessage(task, size));
         } catch (DateTimeParseException e) {
             throw new KiwiException("Invalid date/time format! Use: deadline <description> /by <YYYY-MM-DD HH:mm>");
         }
     }
 
-    private String handleEvent(String arguments) throws KiwiException {
+    private CommandResult handleEvent(String arguments) throws KiwiException {
         String[] parts = Parser.parseEventArgs(arguments);
-        try {
-            Task task = new Deadline(parts[0], parts[1]);
-            tasks.addTask(task);
-            storage.save(tasks.getAllTasks());
-            return ui.showAddMessage(task, tasks.size());
-        } catch (KiwiException e) {
-            throw new KiwiException("Invalid date/time format! Use: deadline <description> /by <YYYY-MM-DD HH:mm>");
-        }
+        Event task = new Event(parts[0], parts[1], parts[2]);
+        TaskList clashes = tasks.findClashes(task);
+        tasks.addTask(task);
+        journal(() -> storage.appendAdd(task));
+        int size = tasks.size();
+        return CommandResult.success(task, render(() -> ui.showAddMessage(task, size) + ui.showClashes(clashes)));
     }
 
-    private String handleFind(String arguments) throws KiwiException {
+    private CommandResult handleFind(String arguments) throws KiwiException {
         if (arguments.isEmpty()) {
             throw new KiwiException("Please specify a search keyword!");
         }
         TaskList matchingTasks = tasks.findTasks(arguments);
-        return ui.showFoundTasks(matchingTasks);
+        return CommandResult.success(render(() -> ui.showFoundTasks(matchingTasks)));
+    }
+
+    private CommandResult handleDue(String arguments) throws KiwiException {
+        LocalDate date = Parser.parseDate(arguments, "due <YYYY-MM-DD>");
+        TaskList dueTasks = tasks.findDueOn(date);
+        return CommandResult.success(render(() -> ui.showDueTasks(date, dueTasks)));
+    }
+
+    private CommandResult handleOverdue() {
+        TaskList overdueTasks = tasks.findOverdue(LocalDateTime.now());
+        return CommandResult.success(render(() -> ui.showOverdueTasks(overdueTasks)));
+    }
+
+    private CommandResult handleUpcoming(String arguments) throws KiwiException {
+        int count = Parser.parseCount(arguments, DEFAULT_UPCOMING_COUNT);
+        TaskList upcomingTasks = tasks.findUpcoming(LocalDateTime.now(), count);
+        return CommandResult.success(render(() -> ui.showUpcomingTasks(upcomingTasks)));
+    }
+
+    private CommandResult handleAgenda(String arguments) throws KiwiException {
+        LocalDate date = Parser.parseDate(arguments, "agenda <YYYY-MM-DD>");
+        TaskList events = tasks.findEventsOn(date);
+        TaskList deadlines = tasks.findDueOn(date);
+        return CommandResult.success(render(() -> ui.showAgenda(date, events, deadlines)));
     }
 
-    private String handleEdit(String arguments) throws KiwiException {
+    private CommandResult handleEdit(String arguments) throws KiwiException {
         Map<String, String> updates = Parser.parseEditArgs(arguments);
-        int index = Integer.parseInt(updates.get("index"));
+        int index = updates.containsKey("id")
+                ? tasks.indexOf(Long.parseLong(updates.get("id")))
+                : Integer.parseInt(updates.get("index"));
 
         Task originalTask = tasks.getTask(index);
         Task updatedTask = createUpdatedTask(originalTask, updates);
 
         tasks.replaceTask(index, updatedTask);
-        storage.save(tasks.getAllTasks());
-        return ui.showEditSuccess(updatedTask);
+        journal(() -> storage.appendReplace(index, updatedTask));
+        return CommandResult.success(updatedTask, () -> ui.showEditSuccess(updatedTask));
     }
 
     private Task createUpdatedTask(Task original, Map<String, String> updates) throws KiwiException {
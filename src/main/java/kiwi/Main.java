@@ -39,5 +39,13 @@ public class Main extends Application {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Closes Kiwi's task file when the application exits.
+     */
+    @Override
+    public void stop() {
+        kiwiChatbot.close();
+    }
 }
 
@@ -1,38 +1,76 @@
 package kiwi;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 
 /**
  * Controller for the main GUI.
  */
 public class MainWindow extends AnchorPane {
+    private static final Path TRANSCRIPT_PATH = Path.of("data", "transcript.txt");
+    private static final int MAX_MESSAGES_IN_MEMORY = 200;
+    private static final int TRANSCRIPT_PAGE_SIZE = 50;
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<ChatMessage> conversationView;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
+    @FXML
+    private Button busyIndicator;
 
     private Kiwi kiwiChatbot;
+    private CommandPipeline pipeline;
+    private ConversationHistory history;
+    private int pendingCommands;
 
-    private Image userImage = new Image(this.getClass().getResourceAsStream("/images/Eyes.png"));
-    private Image kiwiImage = new Image(this.getClass().getResourceAsStream("/images/Kiwi.png"));
-
+    /**
+     * Opens the transcript and connects the conversation view to the history kept in it. If the transcript
+     * cannot be opened, the conversation is only kept in memory.
+     */
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        Transcript transcript = null;
+        try {
+            transcript = new Transcript(TRANSCRIPT_PATH);
+        } catch (IOException e) {
+            System.err.println("Could not open the transcript, keeping the conversation in memory: "
+                    + e.getMessage());
+        }
+        history = new ConversationHistory(transcript, MAX_MESSAGES_IN_MEMORY, TRANSCRIPT_PAGE_SIZE);
+        conversationView.setItems(history.getItems());
+        userInput.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ESCAPE) {
+                handleCancel();
+            }
+        });
+        conversationView.setCellFactory(listView -> new DialogCell(listView, this::showOlderMessages,
+                history::loadNewer));
+    }
+
+    private void showOlderMessages() {
+        int inserted = history.loadOlder();
+        if (inserted > 0) {
+            conversationView.scrollTo(inserted);
+        }
+    }
+
+    private void showMessage(ChatMessage.Kind kind, String text) {
+        history.append(new ChatMessage(kind, text));
+        conversationView.scrollTo(history.getItems().size() - 1);
     }
 
     /**
@@ -40,35 +78,66 @@ public class MainWindow extends AnchorPane {
      */
     public void setKiwi(Kiwi k) {
         kiwiChatbot = k;
+        pipeline = new CommandPipeline(k);
         String greeting = kiwiChatbot.getGreeting();
         assert greeting != null;
-        dialogContainer.getChildren().add(DialogBox.getKiwiDialog(greeting, kiwiImage));
+        showMessage(ChatMessage.Kind.KIWI, greeting);
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Duke's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Echoes the user input and hands it to the command pipeline, so that the window stays responsive while
+     * the command runs. Kiwi's reply is added to the conversation once it arrives, in submission order.
+     * Clears the user input after submitting.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = kiwiChatbot.getResponse(input);
+        showMessage(ChatMessage.Kind.USER, input);
+        userInput.clear();
+        setPendingCommands(pendingCommands + 1);
+        pipeline.submit(input).whenCompleteAsync((result, error) -> {
+            setPendingCommands(pendingCommands - 1);
+            showResult(result, error);
+        }, Platform::runLater);
+    }
 
-        assert response != null;
+    /**
+     * Stops any search that is still waiting or running.
+     */
+    @FXML
+    private void handleCancel() {
+        pipeline.cancelQueries();
+    }
 
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getKiwiDialog(response, kiwiImage)
-        );
-        userInput.clear();
-        if (response.contains("Bye. Hope to see you again soon!")) {
+    private void setPendingCommands(int count) {
+        pendingCommands = count;
+        busyIndicator.setVisible(count > 0);
+    }
+
+    private void showResult(CommandResult result, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            showMessage(ChatMessage.Kind.KIWI, "Okay, I stopped that search.");
+            return;
+        }
+        if (cause != null) {
+            showMessage(ChatMessage.Kind.KIWI, "Error: " + cause.getMessage());
+            return;
+        }
+
+        assert result != null;
+
+        showMessage(ChatMessage.Kind.KIWI, result.getText());
+        if (result.isExit()) {
             // Solution below adapted from https://github.com/nus-cs2103-AY2425S2/forum/issues/160
             new Timer(true).schedule(new TimerTask() {
                 public void run() {
-                    Platform.exit();
+                    Platform.runLater(() -> {
+                        history.closeTranscript();
+                        Platform.exit();
+                    });
                 }
             }, 3000);
         }
     }
 }
-
@@ -0,0 +1,134 @@
+package kiwi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps every message of the current session in an append-only file, so that the conversation view
+ * only has to hold the messages near what is on screen.
+ * <p>
+ * Each message is one line: {@code U} or {@code K} followed by the text, with backslashes and line breaks
+ * escaped. The file offset of every line is kept in memory, so any range of messages can be read back
+ * with a single positional read.
+ */
+final class Transcript implements AutoCloseable {
+    private final FileChannel channel;
+    private long[] offsets = new long[1024];
+    private int count;
+
+    /**
+     * Opens a transcript file, discarding the transcript of any earlier session.
+     *
+     * @param path The transcript file.
+     * @throws IOException If the file cannot be created.
+     */
+    Transcript(Path path) throws IOException {
+        Path parent = path.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Appends a message to the end of the transcript.
+     *
+     * @param message The user or Kiwi message.
+     * @throws IOException If the file cannot be written.
+     */
+    void append(ChatMessage message) throws IOException {
+        long offset = offsets[count];
+        ByteBuffer line = StandardCharsets.UTF_8.encode(encode(message));
+        long end = offset + line.remaining();
+        while (line.hasRemaining()) {
+            channel.write(line, end - line.remaining());
+        }
+        if (count + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[count] = offset;
+        offsets[++count] = end;
+    }
+
+    /**
+     * Reads back the messages in {@code [from, to)}.
+     *
+     * @param from The index of the first message to read.
+     * @param to The index after the last message to read.
+     * @return The messages, oldest first.
+     * @throws IOException If the file cannot be read.
+     */
+    List<ChatMessage> read(int from, int to) throws IOException {
+        List<ChatMessage> messages = new ArrayList<>(to - from);
+        if (from >= to) {
+            return messages;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) (offsets[to] - offsets[from]));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, offsets[from] + bytes.position()) < 0) {
+                throw new IOException("Transcript is shorter than expected");
+            }
+        }
+        String text = new String(bytes.array(), StandardCharsets.UTF_8);
+        int start = 0;
+        for (int i = from; i < to; i++) {
+            int end = text.indexOf('\n', start);
+            messages.add(decode(text.substring(start, end)));
+            start = end + 1;
+        }
+        return messages;
+    }
+
+    /**
+     * Returns the number of messages in the transcript.
+     */
+    int size() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static String encode(ChatMessage message) {
+        String text = message.getText();
+        StringBuilder line = new StringBuilder(text.length() + 2);
+        line.append(message.getKind() == ChatMessage.Kind.USER ? 'U' : 'K');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                line.append("\\\\");
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else {
+                line.append(c);
+            }
+        }
+        return line.append('\n').toString();
+    }
+
+    private static ChatMessage decode(String line) {
+        StringBuilder text = new StringBuilder(line.length());
+        for (int i = 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                text.append(escaped == 'n' ? '\n' : escaped);
+            } else {
+                text.append(c);
+            }
+        }
+        ChatMessage.Kind kind = line.charAt(0) == 'U' ? ChatMessage.Kind.USER : ChatMessage.Kind.KIWI;
+        return new ChatMessage(kind, text.toString());
+    }
+}
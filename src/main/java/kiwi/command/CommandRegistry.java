@@ -0,0 +1,85 @@
+package kiwi.command;
+
+/**
+ * Maps the first word of an input line to its {@link CommandType} without allocating.
+ * <p>
+ * The keywords are compiled once into a trie over the letters a-z. A lookup walks the trie with the
+ * characters of the input, folding ASCII upper case to lower case as it goes, and stops at the first space,
+ * so neither the command word nor a lower-cased copy of it is ever created.
+ */
+public final class CommandRegistry {
+    private static final int ALPHABET_SIZE = 26;
+    private static final Node ROOT = compile();
+
+    private CommandRegistry() {
+    }
+
+    /**
+     * Returns the command named by the input's first word, ignoring case.
+     *
+     * @param input The user's input line.
+     * @return The command, or null if the first word is not a command keyword.
+     */
+    public static CommandType lookup(CharSequence input) {
+        Node node = ROOT;
+        int length = input.length();
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (c == ' ') {
+                break;
+            }
+            int slot = slotOf(c);
+            if (slot < 0 || node.children[slot] == null) {
+                return null;
+            }
+            node = node.children[slot];
+        }
+        return node.type;
+    }
+
+    /**
+     * Returns the arguments that follow the command word: everything after the first space, untrimmed,
+     * or an empty string if there is no space.
+     *
+     * @param input The user's input line.
+     * @return The arguments of the command.
+     */
+    public static String argumentsOf(String input) {
+        int space = input.indexOf(' ');
+        return space < 0 ? "" : input.substring(space + 1);
+    }
+
+    private static int slotOf(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        return -1;
+    }
+
+    private static Node compile() {
+        Node root = new Node();
+        for (CommandType type : CommandType.values()) {
+            Node node = root;
+            for (char c : type.getKeyword().toCharArray()) {
+                int slot = slotOf(c);
+                if (node.children[slot] == null) {
+                    node.children[slot] = new Node();
+                }
+                node = node.children[slot];
+            }
+            node.type = type;
+        }
+        return root;
+    }
+
+    /**
+     * A trie node; {@code type} is set if the path to this node spells a whole keyword.
+     */
+    private static final class Node {
+        private final Node[] children = new Node[ALPHABET_SIZE];
+        private CommandType type;
+    }
+}
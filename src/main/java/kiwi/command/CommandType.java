@@ -0,0 +1,48 @@
+package kiwi.command;
+
+/**
+ * Lists the commands Kiwi understands, with the keyword that starts each one.
+ */
+public enum CommandType {
+    BYE("bye", false),
+    LIST("list", false),
+    MARK("mark", false),
+    UNMARK("unmark", false),
+    DELETE("delete", false),
+    TODO("todo", false),
+    DEADLINE("deadline", false),
+    EVENT("event", false),
+    FIND("find", true),
+    EDIT("edit", false),
+    DUE("due", true),
+    OVERDUE("overdue", true),
+    UPCOMING("upcoming", true),
+    AGENDA("agenda", true),
+    BEGIN("begin", false),
+    COMMIT("commit", false),
+    ROLLBACK("rollback", false),
+    UNDO("undo", false),
+    REDO("redo", false),
+    STATS("stats", true);
+
+    private final String keyword;
+    private final boolean isQuery;
+
+    CommandType(String keyword, boolean isQuery) {
+        this.keyword = keyword;
+        this.isQuery = isQuery;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Returns whether the command only reads the task list, so that it can be cancelled without leaving
+     * anything half done. {@code list} is not a query since it moves the position that {@code list next}
+     * continues from.
+     */
+    public boolean isQuery() {
+        return isQuery;
+    }
+}
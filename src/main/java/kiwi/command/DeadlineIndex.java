@@ -0,0 +1,134 @@
+package kiwi.command;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import kiwi.task.Deadline;
+import kiwi.task.Task;
+
+/**
+ * Keeps deadlines sorted by due time so that time-based queries only touch the tasks they return.
+ * <p>
+ * Entries are ordered by due time in epoch minutes, with the task id as tie-breaker, so deadlines due
+ * at the same time come back in list order.
+ * Two sorted sets are kept: one with every deadline and one with the deadlines that are not done yet,
+ * which answers {@code overdue} and {@code upcoming} in O(log n + k).
+ */
+class DeadlineIndex {
+    private final NavigableSet<Entry> all = new TreeSet<>();
+    private final NavigableSet<Entry> pending = new TreeSet<>();
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * Indexes a task if it is a deadline.
+     *
+     * @param task The task that was added to the list.
+     */
+    void add(Task task) {
+        if (!(task instanceof Deadline)) {
+            return;
+        }
+        Deadline deadline = (Deadline) task;
+        Entry entry = new Entry(toEpochMinute(LocalDateTime.of(deadline.getDate(), deadline.getTime())),
+                task.getId(), deadline);
+        entries.put(task, entry);
+        all.add(entry);
+        if (!task.isDone()) {
+            pending.add(entry);
+        }
+    }
+
+    /**
+     * Removes a task from the index, if it was indexed.
+     *
+     * @param task The task that was removed from the list.
+     */
+    void remove(Task task) {
+        Entry entry = entries.remove(task);
+        if (entry != null) {
+            all.remove(entry);
+            pending.remove(entry);
+        }
+    }
+
+    /**
+     * Swaps a task for its replacement, such as a copy marked as done.
+     *
+     * @param oldTask The task that was replaced.
+     * @param newTask The task now at the same position.
+     */
+    void replace(Task oldTask, Task newTask) {
+        remove(oldTask);
+        add(newTask);
+    }
+
+    /**
+     * Returns all deadlines due in {@code [from, to)}, earliest first.
+     */
+    List<Task> dueBetween(LocalDateTime from, LocalDateTime to) {
+        return collect(all.subSet(bound(from), true, bound(to), false), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the deadlines that are not done and were due before {@code now}, earliest first.
+     */
+    List<Task> pendingBefore(LocalDateTime now) {
+        return collect(pending.headSet(bound(now), false), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns up to {@code limit} deadlines that are not done and are due at or after {@code now}, earliest first.
+     */
+    List<Task> pendingFrom(LocalDateTime now, int limit) {
+        return collect(pending.tailSet(bound(now), true), limit);
+    }
+
+    private static List<Task> collect(NavigableSet<Entry> range, int limit) {
+        List<Task> tasks = new ArrayList<>();
+        for (Entry entry : range) {
+            if (tasks.size() >= limit) {
+                break;
+            }
+            tasks.add(entry.task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns a probe entry that sorts before every real entry due at the same minute.
+     */
+    private static Entry bound(LocalDateTime dateTime) {
+        return new Entry(toEpochMinute(dateTime), Long.MIN_VALUE, null);
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Associates a deadline with its position in the time order.
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final long epochMinute;
+        private final long tieBreaker;
+        private final Task task;
+
+        Entry(long epochMinute, long tieBreaker, Task task) {
+            this.epochMinute = epochMinute;
+            this.tieBreaker = tieBreaker;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTime = Long.compare(epochMinute, other.epochMinute);
+            return byTime != 0 ? byTime : Long.compare(tieBreaker, other.tieBreaker);
+        }
+    }
+}
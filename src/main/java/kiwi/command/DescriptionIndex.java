@@ -0,0 +1,203 @@
+package kiwi.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import kiwi.task.Task;
+
+/**
+ * Maintains an inverted index from description words to tasks, so that {@code find} does not have to
+ * scan every task.
+ * <p>
+ * Descriptions are lower-cased and split into tokens (runs of letters and digits). Every suffix of every
+ * token is kept in a sorted map, so a keyword matches a token if it is a prefix of one of the token's
+ * suffixes, i.e. if it occurs anywhere inside the token. Results are sorted by task id, which follows the
+ * order of the list.
+ * <p>
+ * Postings refer to an entry per task rather than to the task itself, so that swapping a task for a copy
+ * with the same description, as marking does, only has to re-point its entry.
+ */
+class DescriptionIndex {
+    private static final int MAX_SELECTIVITY_DIVISOR = 4;
+
+    private final Map<String, Set<Entry>> postings = new HashMap<>();
+    private final TreeMap<String, Set<String>> suffixes = new TreeMap<>();
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * Indexes a task that was added to the list.
+     *
+     * @param task The new task.
+     */
+    void add(Task task) {
+        Entry entry = new Entry(task);
+        entries.put(task, entry);
+        for (String token : tokenize(task.getDescription().toLowerCase())) {
+            Set<Entry> tokenEntries = postings.get(token);
+            if (tokenEntries == null) {
+                tokenEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+                postings.put(token, tokenEntries);
+                addSuffixes(token);
+            }
+            tokenEntries.add(entry);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task that was removed from the list.
+     */
+    void remove(Task task) {
+        Entry entry = entries.remove(task);
+        if (entry == null) {
+            return;
+        }
+        for (String token : tokenize(task.getDescription().toLowerCase())) {
+            Set<Entry> tokenEntries = postings.get(token);
+            if (tokenEntries == null) {
+                continue;
+            }
+            tokenEntries.remove(entry);
+            if (tokenEntries.isEmpty()) {
+                postings.remove(token);
+                removeSuffixes(token);
+            }
+        }
+    }
+
+    /**
+     * Swaps a task for its replacement. A replacement with the same description, such as a copy marked as
+     * done, takes over the old task's entry.
+     *
+     * @param oldTask The task that was replaced.
+     * @param newTask The task now at the same position.
+     */
+    void replace(Task oldTask, Task newTask) {
+        Entry entry = entries.get(oldTask);
+        if (entry != null && oldTask.getDescription().equals(newTask.getDescription())) {
+            entries.remove(oldTask);
+            entry.task = newTask;
+            entries.put(newTask, entry);
+            return;
+        }
+        remove(oldTask);
+        add(newTask);
+    }
+
+    /**
+     * Returns the tasks whose description contains the keyword, ignoring case, in list order.
+     * The index is only worth using for selective keywords: if even the rarest word of the keyword
+     * occurs in more than a quarter of all tasks, a plain scan is cheaper and null is returned.
+     *
+     * @param keyword The search term.
+     * @return The matching tasks, or null if the caller should scan the list instead.
+     */
+    List<Task> find(String keyword) {
+        String needle = keyword.toLowerCase();
+        List<String> terms = tokenize(needle);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        List<String> probeTokens = null;
+        long probeCost = Long.MAX_VALUE;
+        for (String term : terms) {
+            List<String> tokens = new ArrayList<>();
+            long cost = 0;
+            for (Set<String> matching : suffixes.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                for (String token : matching) {
+                    tokens.add(token);
+                    cost += postings.get(token).size();
+                }
+            }
+            if (cost < probeCost) {
+                probeTokens = tokens;
+                probeCost = cost;
+            }
+        }
+        if (probeCost > entries.size() / MAX_SELECTIVITY_DIVISOR) {
+            return null;
+        }
+        boolean isSingleToken = terms.size() == 1 && terms.get(0).equals(needle);
+
+        Set<Entry> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String token : probeTokens) {
+            candidates.addAll(postings.get(token));
+        }
+
+        List<Entry> matches = new ArrayList<>();
+        int checked = 0;
+        for (Entry entry : candidates) {
+            TaskList.checkCancelled(checked++);
+            // A keyword made of one token can only occur inside a single token, so no check is needed.
+            if (isSingleToken || entry.task.getDescription().toLowerCase().contains(needle)) {
+                matches.add(entry);
+            }
+        }
+        matches.sort((a, b) -> Long.compare(a.task.getId(), b.task.getId()));
+        List<Task> tasks = new ArrayList<>(matches.size());
+        for (Entry entry : matches) {
+            tasks.add(entry.task);
+        }
+        return tasks;
+    }
+
+    private void addSuffixes(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            suffixes.computeIfAbsent(token.substring(i), suffix -> new HashSet<>()).add(token);
+        }
+    }
+
+    private void removeSuffixes(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            String suffix = token.substring(i);
+            Set<String> tokens = suffixes.get(suffix);
+            if (tokens != null) {
+                tokens.remove(token);
+                if (tokens.isEmpty()) {
+                    suffixes.remove(suffix);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits lower-cased text into its distinct runs of letters and digits.
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isTokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isTokenChar && start < 0) {
+                start = i;
+            } else if (!isTokenChar && start >= 0) {
+                String token = text.substring(start, i);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A task in the index, which marking re-points at the marked copy.
+     */
+    private static class Entry {
+        private Task task;
+
+        Entry(Task task) {
+            this.task = task;
+        }
+    }
+}
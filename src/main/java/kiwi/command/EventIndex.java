@@ -0,0 +1,211 @@
+package kiwi.command;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import kiwi.task.Event;
+import kiwi.task.Task;
+
+/**
+ * Keeps scheduled events in an augmented interval tree so that agenda and clash queries only visit the
+ * events they return.
+ * <p>
+ * The tree is an AVL tree ordered by start time (epoch minutes, with the task id as tie-breaker).
+ * Every node also stores the latest end time in its subtree, which lets an overlap query skip any subtree
+ * that ends before the queried range starts. Queries therefore cost O(log n + k), and insertions and
+ * removals O(log n). Events whose times could not be parsed are not indexed.
+ */
+class EventIndex {
+    private final Map<Task, Node> nodes = new IdentityHashMap<>();
+    private Node root;
+
+    /**
+     * Indexes a task if it is an event with a parsed start and end.
+     *
+     * @param task The task that was added to the list.
+     */
+    void add(Task task) {
+        if (!(task instanceof Event) || !((Event) task).isScheduled()) {
+            return;
+        }
+        Event event = (Event) task;
+        Node node = new Node(toEpochMinute(event.getStart()), toEpochMinute(event.getEnd()), task.getId(),
+                event);
+        nodes.put(task, node);
+        root = insert(root, node);
+    }
+
+    /**
+     * Removes a task from the index, if it was indexed.
+     *
+     * @param task The task that was removed from the list.
+     */
+    void remove(Task task) {
+        Node node = nodes.remove(task);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    /**
+     * Swaps a task for its replacement, such as a copy marked as done.
+     *
+     * @param oldTask The task that was replaced.
+     * @param newTask The task now at the same position.
+     */
+    void replace(Task oldTask, Task newTask) {
+        remove(oldTask);
+        add(newTask);
+    }
+
+    /**
+     * Returns the events that overlap {@code [from, to)}, in order of their start time.
+     */
+    List<Task> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<Task> events = new ArrayList<>();
+        collect(root, toEpochMinute(from), toEpochMinute(to), events);
+        return events;
+    }
+
+    private static void collect(Node node, long from, long to, List<Task> events) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collect(node.left, from, to, events);
+        if (node.start >= to) {
+            // Everything to the right starts even later.
+            return;
+        }
+        if (node.end > from) {
+            events.add(node.event);
+        }
+        collect(node.right, from, to, events);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.compareTo(node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private static Node delete(Node node, Node removed) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = removed.compareTo(node);
+        if (cmp < 0) {
+            node.left = delete(node.left, removed);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, removed);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = delete(node.right, successor);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * An event's interval, plus the height and latest end time of the subtree rooted at it.
+     */
+    private static class Node implements Comparable<Node> {
+        private final long start;
+        private final long end;
+        private final long tieBreaker;
+        private final Event event;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        Node(long start, long end, long tieBreaker, Event event) {
+            this.start = start;
+            this.end = end;
+            this.tieBreaker = tieBreaker;
+            this.event = event;
+            this.maxEnd = end;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            int byStart = Long.compare(start, other.start);
+            return byStart != 0 ? byStart : Long.compare(tieBreaker, other.tieBreaker);
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package kiwi.command;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import kiwi.exception.KiwiException;
+import kiwi.task.Task;
 
 /**
  * Provides utility methods for parsing user input arguments into specific components required by the application.
  */
 public class Parser {
+    private static final String[] EDIT_FIELDS = {"desc", "by", "from", "to"};
+    private static final String ID_PREFIX = "#";
+    private static final String FIND_PREFIX = "find:";
+    private static final String DONE = "done";
+    private static final String UNDONE = "undone";
+
     /**
      * Parses a task index from the input arguments and validates it against the current task count.
      * Converts a 1-based index (user input) to a 0-based index (internal representation).
@@ -32,6 +41,139 @@ public class Parser {
         }
     }
 
+    /**
+     * Parses a reference to a task: either its number as displayed in the list, or {@code #} followed by
+     * its id, which does not change when other tasks are deleted.
+     *
+     * @param arguments The input string referring to a task.
+     * @param tasks The task list the reference points into.
+     * @return The 0-based index of the task.
+     * @throws KiwiException If the input is neither a valid task number nor the id of a task in the list.
+     */
+    public static int parseTaskReference(String arguments, TaskList tasks) throws KiwiException {
+        String reference = arguments.trim();
+        if (!reference.startsWith(ID_PREFIX)) {
+            return parseIndex(reference, tasks.size());
+        }
+        return tasks.indexOf(parseId(reference));
+    }
+
+    /**
+     * Tells whether the arguments of mark, unmark or delete pick out several tasks rather than one: a list of
+     * task numbers, ids and ranges such as {@code 3,7,9-20}, or one of {@code done}, {@code undone} and
+     * {@code find:KEYWORD}.
+     *
+     * @param arguments The arguments of the command.
+     * @return True if the arguments should be parsed with {@link #parseTaskSelection(String, TaskList)}.
+     */
+    public static boolean isTaskSelection(String arguments) {
+        String selection = arguments.trim();
+        return selection.indexOf(',') >= 0 || selection.indexOf('-') >= 0 || selection.equalsIgnoreCase(DONE)
+                || selection.equalsIgnoreCase(UNDONE) || isFindSelection(selection);
+    }
+
+    /**
+     * Parses a selection of several tasks. Ranges are inclusive, and a task picked more than once is only
+     * selected once. {@code done} and {@code undone} select the tasks that are (not) done, and
+     * {@code find:KEYWORD} the tasks that {@code find KEYWORD} would show.
+     *
+     * @param arguments The input string selecting the tasks.
+     * @param tasks The task list the selection points into.
+     * @return The 0-based indices of the selected tasks, in increasing order without repeats.
+     * @throws KiwiException If part of the selection is not valid, or it selects no tasks at all.
+     */
+    public static int[] parseTaskSelection(String arguments, TaskList tasks) throws KiwiException {
+        String selection = arguments.trim();
+        int[] indices;
+        if (selection.equalsIgnoreCase(DONE)) {
+            indices = tasks.findIndices(Task::isDone);
+        } else if (selection.equalsIgnoreCase(UNDONE)) {
+            indices = tasks.findIndices(task -> !task.isDone());
+        } else if (isFindSelection(selection)) {
+            String keyword = selection.substring(FIND_PREFIX.length()).trim();
+            if (keyword.isEmpty()) {
+                throw new KiwiException("Please enter a keyword after find:, such as find:report");
+            }
+            TaskList matches = tasks.findTasks(keyword);
+            indices = new int[matches.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = tasks.indexOf(matches.getTask(i).getId());
+            }
+            Arrays.sort(indices);
+        } else {
+            indices = parseTaskList(selection, tasks);
+        }
+        if (indices.length == 0) {
+            throw new KiwiException("No tasks match " + selection + "!");
+        }
+        return indices;
+    }
+
+    private static boolean isFindSelection(String selection) {
+        return selection.regionMatches(true, 0, FIND_PREFIX, 0, FIND_PREFIX.length());
+    }
+
+    /**
+     * Parses comma-separated task numbers, ranges of task numbers and task ids.
+     */
+    private static int[] parseTaskList(String selection, TaskList tasks) throws KiwiException {
+        BitSet selected = new BitSet();
+        for (String part : selection.split(",", -1)) {
+            String item = part.trim();
+            int dash = item.indexOf('-');
+            if (dash < 0) {
+                selected.set(parseTaskReference(item, tasks));
+                continue;
+            }
+            int first = parseIndex(item.substring(0, dash).trim(), tasks.size());
+            int last = parseIndex(item.substring(dash + 1).trim(), tasks.size());
+            if (first > last) {
+                throw new KiwiException("Invalid range " + item + "! Put the smaller number first, such as 3-7");
+            }
+            selected.set(first, last + 1);
+        }
+        return selected.stream().toArray();
+    }
+
+    /**
+     * Parses a date argument in the format "yyyy-MM-dd".
+     *
+     * @param arguments The input string containing the date.
+     * @param usage The command usage to show if the date is invalid.
+     * @return The parsed date.
+     * @throws KiwiException If the input is not a valid date.
+     */
+    public static LocalDate parseDate(String arguments, String usage) throws KiwiException {
+        try {
+            return LocalDate.parse(arguments.trim());
+        } catch (DateTimeParseException e) {
+            throw new KiwiException("Invalid date format! Use: " + usage);
+        }
+    }
+
+    /**
+     * Parses an optional positive count, returning the default if the input is empty.
+     *
+     * @param arguments The input string containing the count.
+     * @param defaultCount The count to use if no count is given.
+     * @return The parsed count.
+     * @throws KiwiException If the input is not a positive integer.
+     */
+    public static int parseCount(String arguments, int defaultCount) throws KiwiException {
+        if (arguments.isBlank()) {
+            return defaultCount;
+        }
+        try {
+            int count = Integer.parseInt(arguments.trim());
+            if (count <= 0) {
+                throw new KiwiException("Please enter a positive number");
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new KiwiException("Please enter a positive number");
+        }
+    }
+
     /**
      * Parses arguments for a deadline command into its description and date/time components.
      * Expects the input format: "&lt;description&gt; /by &lt;date&gt; &lt;time&gt;".
@@ -41,12 +183,13 @@ public class Parser {
      * @throws KiwiException If the input does not conform to the expected format.
      */
     public static String[] parseDeadlineArgs(String arguments) throws KiwiException {
-        String[] parts = arguments.split("/by", 2);
-        if (parts.length < 2 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty()) {
+        int by = Tokenizer.indexOf(arguments, "/by", 0);
+        int length = arguments.length();
+        if (by < 0 || Tokenizer.isBlank(arguments, 0, by) || Tokenizer.isBlank(arguments, by + 3, length)) {
             throw new KiwiException("Invalid deadline format! Use: deadline <description> /by <date> <time>");
         }
 
-        return new String[]{parts[0].trim(), parts[1].trim()};
+        return new String[]{Tokenizer.trimmed(arguments, 0, by), Tokenizer.trimmed(arguments, by + 3, length)};
     }
 
     /**
@@ -59,60 +202,94 @@ public class Parser {
      *                       or if any component is missing.
      */
     public static String[] parseEventArgs(String arguments) throws KiwiException {
-        String[] parts = arguments.split("/from", 2);
-        if (parts.length < 2) {
-            throw new KiwiException("Invalid event format! Use: event <description> /from <start> /to <end>");
-        }
-
-        String[] timeParts = parts[1].split("/to", 2);
-        if (timeParts.length < 2) {
+        int from = Tokenizer.indexOf(arguments, "/from", 0);
+        int to = from < 0 ? -1 : Tokenizer.indexOf(arguments, "/to", from + 5);
+        if (to < 0) {
             throw new KiwiException("Invalid event format! Use: event <description> /from <start> /to <end>");
         }
 
         return new String[]{
-                parts[0].trim(),
-                timeParts[0].trim(),
-                timeParts[1].trim()
+                Tokenizer.trimmed(arguments, 0, from),
+                Tokenizer.trimmed(arguments, from + 5, to),
+                Tokenizer.trimmed(arguments, to + 3, arguments.length())
         };
     }
 
     /**
-     * Parses arguments for an edit command into its index and update fields.
-     * Expects the input format: "index [/desc DESCRIPTION] [/by DEADLINE] [/from START] [/to END]".
+     * Parses arguments for an edit command into its task reference and update fields.
+     * Expects the input format: "index [/desc DESCRIPTION] [/by DEADLINE] [/from START] [/to END]", where the
+     * index may also be "#" followed by a task id.
+     * The arguments are scanned once: each field runs from its flag to the next '/'.
      *
      * @param arguments The input string containing the edit parameters
-     * @return An array where first element is index and subsequent elements are key-value pairs
+     * @return A map from "index" to the 0-based index, or from "id" to the task id, and from each given field
+     *     name to its new value
      * @throws KiwiException If the input format is invalid
      */
     public static Map<String, String> parseEditArgs(String arguments) throws KiwiException {
         Map<String, String> updates = new HashMap<>();
-        String[] parts = arguments.split("\\s+/(desc|by|from|to)\\s+", -1);
+        int length = arguments.length();
+        int indexEnd = -1;
+        int i = Tokenizer.nextOrEnd(arguments, '/', 0);
+        while (i < length) {
+            String field = editFieldAt(arguments, i);
+            if (field == null) {
+                i = Tokenizer.nextOrEnd(arguments, '/', i + 1);
+                continue;
+            }
+            if (indexEnd < 0) {
+                indexEnd = i;
+            }
+            int valueStart = i + 1 + field.length();
+            int valueEnd = Tokenizer.nextOrEnd(arguments, '/', valueStart);
+            if (!Tokenizer.isBlank(arguments, valueStart, valueEnd)) {
+                updates.put(field, Tokenizer.trimmed(arguments, valueStart, valueEnd));
+            }
+            i = valueEnd;
+        }
 
-        if (parts.length < 1) {
-            throw new KiwiException("Invalid edit format!"
-                    + "Use: edit <index> [/desc ...] [/by ...] [/from ...] [/to ...]");
+        String reference = Tokenizer.trimmed(arguments, 0, indexEnd < 0 ? length : indexEnd);
+        if (reference.startsWith(ID_PREFIX)) {
+            updates.put("id", String.valueOf(parseId(reference)));
+        } else {
+            try {
+                updates.put("index", String.valueOf(Integer.parseInt(reference) - 1));
+            } catch (NumberFormatException e) {
+                throw new KiwiException("Invalid task number format!");
+            }
         }
 
-        try {
-            int index = Integer.parseInt(parts[0].trim()) - 1;
-            updates.put("index", String.valueOf(index));
-        } catch (NumberFormatException e) {
-            throw new KiwiException("Invalid task number format!");
+        if (updates.size() == 1) { // Only the task reference present
+            throw new KiwiException("No fields to update! Use at least one of: /desc, /by, /from, /to");
         }
 
-        Pattern pattern = Pattern.compile("/(desc|by|from|to)\\s+([^/]+)");
-        Matcher matcher = pattern.matcher(arguments);
+        return updates;
+    }
 
-        while (matcher.find()) {
-            String field = matcher.group(1);
-            String value = matcher.group(2).trim();
-            updates.put(field, value);
+    private static long parseId(String reference) throws KiwiException {
+        long id;
+        try {
+            id = Long.parseLong(reference.substring(ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            id = 0;
         }
-
-        if (updates.size() == 1) { // Only index present
-            throw new KiwiException("No fields to update! Use at least one of: /desc, /by, /from, /to");
+        if (id <= 0) {
+            throw new KiwiException("Please enter a valid task id, such as #12");
         }
+        return id;
+    }
 
-        return updates;
+    /**
+     * Returns the edit field whose flag starts at the given '/', if the flag is followed by whitespace.
+     */
+    private static String editFieldAt(String arguments, int slash) {
+        for (String field : EDIT_FIELDS) {
+            int end = slash + 1 + field.length();
+            if (Tokenizer.regionMatches(arguments, slash + 1, field)
+                    && end < arguments.length() && Character.isWhitespace(arguments.charAt(end))) {
+                return field;
+            }
+        }
+        return null;
     }
 }
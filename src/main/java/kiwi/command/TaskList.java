@@ -1,40 +1,142 @@
 package kiwi.command;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
 
 import kiwi.exception.KiwiException;
+import kiwi.task.Deadline;
+import kiwi.task.Event;
 import kiwi.task.Task;
 
 /**
  * Manages a list of {@link Task} objects, providing methods to manipulate and access tasks.
  * Supports adding, removing, marking, unmarking, and retrieving tasks by index.
+ * <p>
+ * Every task added to the list is given the next id, so ids increase along the list. A task keeps its id when
+ * it is marked or edited, and {@link #indexOf(long)} turns an id back into the task's current position.
+ * Keeps a {@link DescriptionIndex}, a {@link DeadlineIndex} and an {@link EventIndex} up to date with every
+ * change so that searches and time-based queries do not have to scan the whole list.
+ * <p>
+ * The tasks are held in a persistent {@link TaskVector}: every change produces a new version of the list in
+ * O(log n) time and space, sharing everything else with the version before it. Earlier versions are what
+ * {@link #undo(int)} returns to and what a {@link Snapshot} holds, so neither ever copies the list.
+ * Changes to many tasks at once, such as {@link #deleteTasks(int[])}, instead rebuild the vector in a single
+ * O(n) pass once that is cheaper than changing the tasks one at a time.
+ * <p>
+ * A task list has a single writer, the thread running commands, but may be read from any thread. Changes and
+ * index lookups take a {@link StampedLock}; sizes and snapshots are read optimistically without locking.
+ * Tasks themselves are never changed once they are in the list (marking one swaps in a copy), so a snapshot
+ * stays valid while commands carry on.
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    private static final int CANCEL_CHECK_MASK = 4096 - 1;
+    private static final int DEFAULT_HISTORY_STEPS = 100;
+    private static final int MAX_HISTORY_CHANGES = 1 << 20;
+
+    private final boolean isIndexed;
+    private final StampedLock lock = new StampedLock();
+    private final DescriptionIndex descriptionIndex = new DescriptionIndex();
+    private final DeadlineIndex deadlineIndex = new DeadlineIndex();
+    private final EventIndex eventIndex = new EventIndex();
+    private final Deque<Step> undoSteps = new ArrayDeque<>();
+    private final Deque<Step> redoSteps = new ArrayDeque<>();
+    private volatile TaskVector tasks;
+    private int deadlineCount;
+    private int eventCount;
+    private long version;
+    private long nextId;
+    private volatile Snapshot snapshot;
+    private TaskVector checkpointTasks;
+    private List<Change> pendingChanges = new ArrayList<>();
+    private int historyStepLimit = DEFAULT_HISTORY_STEPS;
+    private int historyChangeCount;
 
     /**
      * Constructs an empty {@code TaskList}.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new ArrayList<>());
     }
 
     /**
-     * Constructs a {@code TaskList} initialized with the provided list of tasks.
+     * Constructs a {@code TaskList} initialized with the provided list of tasks, which the list takes over.
+     * Tasks without an id, such as those from a file saved before tasks had ids, and tasks whose id is not
+     * greater than the one before them are given new ids.
      *
      * @param tasks The initial list of tasks to populate the task list.
      */
     public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+        this(tasks, 0);
     }
 
     /**
-     * Adds a task to the task list.
+     * Constructs a {@code TaskList} initialized with the provided list of tasks, like {@link #TaskList(ArrayList)},
+     * that gives new tasks ids starting from {@code nextId}. The ids of deleted tasks are thereby not reused
+     * even when they were the newest.
      *
-     * @param task The task to be added.
+     * @param tasks The initial list of tasks to populate the task list.
+     * @param nextId The id to give the next task added, if it is greater than the id of every task in the list.
+     */
+    public TaskList(ArrayList<Task> tasks, long nextId) {
+        this(assignIds(tasks), true);
+        this.nextId = Math.max(this.nextId, nextId);
+        for (Task task : tasks) {
+            indexAdd(task);
+        }
+    }
+
+    /**
+     * Constructs a {@code TaskList} over the given tasks. Short-lived lists such as search results
+     * are not indexed.
+     */
+    private TaskList(List<Task> tasks, boolean isIndexed) {
+        this.tasks = TaskVector.of(tasks);
+        this.isIndexed = isIndexed;
+        this.nextId = tasks.isEmpty() ? 1 : tasks.get(tasks.size() - 1).getId() + 1;
+        this.checkpointTasks = this.tasks;
+    }
+
+    private static List<Task> assignIds(List<Task> tasks) {
+        long lastId = 0;
+        for (Task task : tasks) {
+            if (task.getId() <= lastId) {
+                task.setId(lastId + 1);
+            }
+            lastId = task.getId();
+        }
+        return tasks;
+    }
+
+    /**
+     * Adds a task to the end of the task list and gives it the next id.
+     *
+     * @param task The task to be added, which must not have an id yet.
+     * @throws IllegalArgumentException If the task already has an id.
      */
     public void addTask(Task task) {
-        tasks.add(task);
+        if (task.getId() != 0) {
+            throw new IllegalArgumentException("Task #" + task.getId() + " has already been added to a list");
+        }
+        long stamp = lock.writeLock();
+        try {
+            task.setId(nextId++);
+            tasks = tasks.insert(tasks.size(), task);
+            indexAdd(task);
+            pendingChanges.add(new Change(tasks.size() - 1, null, task));
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -45,10 +147,64 @@ public class TaskList {
      * @throws KiwiException If the index is out of bounds (less than 0 or greater than/equal to list size).
      */
     public Task deleteTask(int index) throws KiwiException {
+        long stamp = lock.writeLock();
         try {
-            return tasks.remove(index);
-        } catch (IndexOutOfBoundsException e) {
-            throw new KiwiException("Invalid task number!");
+            checkIndex(index);
+            Task removed = tasks.get(index);
+            tasks = tasks.remove(index);
+            indexRemove(removed);
+            pendingChanges.add(new Change(index, removed, null));
+            version++;
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the tasks at the given positions. Many tasks are removed in one pass that copies the tasks
+     * that stay into a new vector, rather than one O(log n) removal after another.
+     *
+     * @param indices The 0-based indices of the tasks to remove, in increasing order without repeats.
+     * @return The removed tasks, in the order they were in the list.
+     * @throws KiwiException If an index is out of bounds or the indices are not in increasing order.
+     */
+    public List<Task> deleteTasks(int[] indices) throws KiwiException {
+        long stamp = lock.writeLock();
+        try {
+            checkIndices(indices);
+            List<Task> removed = new ArrayList<>(indices.length);
+            if (isCheaperOneByOne(indices.length)) {
+                for (int index : indices) {
+                    removed.add(tasks.get(index));
+                }
+                for (int i = indices.length - 1; i >= 0; i--) {
+                    tasks = tasks.remove(indices[i]);
+                }
+            } else {
+                List<Task> kept = new ArrayList<>(tasks.size() - indices.length);
+                int next = 0;
+                Iterator<Task> iterator = tasks.asList().iterator();
+                for (int i = 0; iterator.hasNext(); i++) {
+                    Task task = iterator.next();
+                    if (next < indices.length && indices[next] == i) {
+                        removed.add(task);
+                        next++;
+                    } else {
+                        kept.add(task);
+                    }
+                }
+                tasks = TaskVector.of(kept);
+            }
+            // Recorded from the back so that each change's index is still right when they are replayed in order.
+            for (int i = indices.length - 1; i >= 0; i--) {
+                indexRemove(removed.get(i));
+                pendingChanges.add(new Change(indices[i], removed.get(i), null));
+            }
+            version++;
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
         }
     }
 
@@ -60,69 +216,330 @@ public class TaskList {
      * @throws KiwiException If the index is out of bounds.
      */
     public Task getTask(int index) throws KiwiException {
-        try {
-            return tasks.get(index);
-        } catch (IndexOutOfBoundsException e) {
+        TaskVector current = tasks;
+        if (index < 0 || index >= current.size()) {
             throw new KiwiException("Invalid task number!");
         }
+        return current.get(index);
+    }
+
+    /**
+     * Returns the current 0-based position of the task with the given id, in O(log n) time.
+     *
+     * @param id The task id.
+     * @return The index of the task.
+     * @throws KiwiException If no task in the list has that id.
+     */
+    public int indexOf(long id) throws KiwiException {
+        TaskVector current = tasks;
+        int index = isIndexed ? current.indexOfId(id) : scanForId(current, id);
+        if (index < 0) {
+            throw new KiwiException("There is no task #" + id + "!");
+        }
+        return index;
+    }
+
+    /**
+     * Finds a task's position in a list whose ids are not in order, such as search results.
+     */
+    private static int scanForId(TaskVector tasks, long id) {
+        int index = 0;
+        for (Task task : tasks.asList()) {
+            if (task.getId() == id) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
     }
 
     /**
-     * Marks the task at the specified 0-based index as done.
+     * Returns the tasks in a range of positions, for example one page of the list.
+     *
+     * @param from The 0-based index of the first task, inclusive.
+     * @param to The 0-based index of the last task, exclusive.
+     * @return An immutable copy of the tasks in the range.
+     * @throws IndexOutOfBoundsException If the range does not lie within the list.
+     */
+    public List<Task> getTasks(int from, int to) {
+        return tasks.slice(from, to);
+    }
+
+    /**
+     * Marks the task at the specified 0-based index as done, by replacing it with a copy that is done.
      *
      * @param index The 0-based index of the task to mark.
+     * @return The task now at that index.
      * @throws KiwiException If the index is out of bounds.
      */
-    public void markTask(int index) throws KiwiException {
-        Task task = getTask(index);
-        task.markAsDone();
+    public Task markTask(int index) throws KiwiException {
+        return setDone(index, true);
     }
 
     /**
-     * Marks the task at the specified 0-based index as not done.
+     * Marks the task at the specified 0-based index as not done, by replacing it with a copy that is not done.
      *
      * @param index The 0-based index of the task to unmark.
+     * @return The task now at that index.
      * @throws KiwiException If the index is out of bounds.
      */
-    public void unmarkTask(int index) throws KiwiException {
-        Task task = getTask(index);
-        task.markAsUndone();
+    public Task unmarkTask(int index) throws KiwiException {
+        return setDone(index, false);
+    }
+
+    private Task setDone(int index, boolean isDone) throws KiwiException {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            Task task = tasks.get(index);
+            if (task.isDone() == isDone) {
+                return task;
+            }
+            Task newTask = task.withDone(isDone);
+            replace(index, newTask);
+            return newTask;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks the tasks at the given positions as done, in one pass if there are many of them.
+     *
+     * @param indices The 0-based indices of the tasks to mark, in increasing order without repeats.
+     * @return The tasks that were not done before, as they are now in the list.
+     * @throws KiwiException If an index is out of bounds or the indices are not in increasing order.
+     */
+    public List<Task> markTasks(int[] indices) throws KiwiException {
+        return setDone(indices, true);
+    }
+
+    /**
+     * Marks the tasks at the given positions as not done, in one pass if there are many of them.
+     *
+     * @param indices The 0-based indices of the tasks to unmark, in increasing order without repeats.
+     * @return The tasks that were done before, as they are now in the list.
+     * @throws KiwiException If an index is out of bounds or the indices are not in increasing order.
+     */
+    public List<Task> unmarkTasks(int[] indices) throws KiwiException {
+        return setDone(indices, false);
+    }
+
+    private List<Task> setDone(int[] indices, boolean isDone) throws KiwiException {
+        long stamp = lock.writeLock();
+        try {
+            checkIndices(indices);
+            List<Task> changed = new ArrayList<>();
+            if (isCheaperOneByOne(indices.length)) {
+                for (int index : indices) {
+                    Task task = tasks.get(index);
+                    if (task.isDone() != isDone) {
+                        Task newTask = task.withDone(isDone);
+                        replace(index, newTask);
+                        changed.add(newTask);
+                    }
+                }
+                return changed;
+            }
+            Task[] all = tasks.asList().toArray(new Task[0]);
+            for (int index : indices) {
+                Task task = all[index];
+                if (task.isDone() != isDone) {
+                    all[index] = task.withDone(isDone);
+                    indexReplace(task, all[index]);
+                    pendingChanges.add(new Change(index, task, all[index]));
+                    changed.add(all[index]);
+                }
+            }
+            if (!changed.isEmpty()) {
+                tasks = TaskVector.of(List.of(all));
+                version++;
+            }
+            return changed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the positions of the tasks that match a condition, found in one pass over a snapshot.
+     *
+     * @param condition The condition to test each task against.
+     * @return The 0-based indices of the matching tasks, in increasing order.
+     */
+    public int[] findIndices(Predicate<Task> condition) {
+        int[] indices = new int[16];
+        int count = 0;
+        Iterator<Task> scanned = snapshot().getTasks().iterator();
+        for (int i = 0; scanned.hasNext(); i++) {
+            checkCancelled(i);
+            if (condition.test(scanned.next())) {
+                if (count == indices.length) {
+                    indices = Arrays.copyOf(indices, count * 2);
+                }
+                indices[count++] = i;
+            }
+        }
+        return Arrays.copyOf(indices, count);
     }
 
     /**
      * Finds tasks containing the specified keyword in their description.
-     * The search is case-insensitive.
+     * The search is case-insensitive. Matches are looked up in the description index, falling back
+     * to a full scan of a snapshot for keywords without any letters or digits.
      *
      * @param keyword The search term to match
      * @return A new TaskList containing all matching tasks
      */
     public TaskList findTasks(String keyword) {
+        List<Task> indexed = null;
+        if (isIndexed) {
+            long stamp = lock.readLock();
+            try {
+                indexed = descriptionIndex.find(keyword);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (indexed == null) {
+            return scanTasks(keyword);
+        }
+        return new TaskList(indexed, false);
+    }
+
+    /**
+     * Finds tasks containing the keyword by checking every description in turn. The scan runs over a
+     * snapshot, so it does not hold up changes to the list however long it takes.
+     */
+    TaskList scanTasks(String keyword) {
         ArrayList<Task> matches = new ArrayList<>();
         String searchTerm = keyword.toLowerCase();
 
-        for (Task task : tasks) {
+        Iterator<Task> scanned = snapshot().getTasks().iterator();
+        for (int i = 0; scanned.hasNext(); i++) {
+            checkCancelled(i);
+            Task task = scanned.next();
             if (task.getDescription().toLowerCase().contains(searchTerm)) {
                 matches.add(task);
             }
         }
-        return new TaskList(matches);
+        return new TaskList(matches, false);
     }
 
     /**
-     * Replaces a task at the specified index with a new task
+     * Replaces a task at the specified index with a new task, which takes over the old task's id
      *
      * @param index The 0-based index of the task to replace
-     * @param newTask The new task to put in the list
+     * @param newTask The new task to put in the list, which must not have an id yet
      * @throws KiwiException If the index is out of bounds
      */
     public void replaceTask(int index, Task newTask) throws KiwiException {
+        long stamp = lock.writeLock();
         try {
-            tasks.set(index, newTask);
-        } catch (IndexOutOfBoundsException e) {
-            throw new KiwiException("Invalid task number!");
+            checkIndex(index);
+            newTask.setId(tasks.get(index).getId());
+            replace(index, newTask);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void replace(int index, Task newTask) {
+        Task oldTask = tasks.get(index);
+        tasks = tasks.set(index, newTask);
+        indexReplace(oldTask, newTask);
+        pendingChanges.add(new Change(index, oldTask, newTask));
+        version++;
+    }
+
+    /**
+     * Returns the deadlines due on the given date, earliest first.
+     *
+     * @param date The date to look up
+     * @return A new TaskList containing the deadlines due on that date
+     */
+    public TaskList findDueOn(LocalDate date) {
+        long stamp = lock.readLock();
+        try {
+            return new TaskList(deadlineIndex.dueBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay()),
+                    false);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the deadlines that are not done and were due before the given time, earliest first.
+     *
+     * @param now The current date and time
+     * @return A new TaskList containing the overdue deadlines
+     */
+    public TaskList findOverdue(LocalDateTime now) {
+        long stamp = lock.readLock();
+        try {
+            return new TaskList(deadlineIndex.pendingBefore(now), false);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the next deadlines that are not done yet, earliest first.
+     *
+     * @param now The current date and time
+     * @param limit The maximum number of deadlines to return
+     * @return A new TaskList containing up to {@code limit} upcoming deadlines
+     */
+    public TaskList findUpcoming(LocalDateTime now, int limit) {
+        long stamp = lock.readLock();
+        try {
+            return new TaskList(deadlineIndex.pendingFrom(now, limit), false);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the scheduled events that take place at any time on the given date, in order of start time.
+     *
+     * @param date The date to look up
+     * @return A new TaskList containing the events on that date
+     */
+    public TaskList findEventsOn(LocalDate date) {
+        long stamp = lock.readLock();
+        try {
+            return new TaskList(eventIndex.overlapping(date.atStartOfDay(), date.plusDays(1).atStartOfDay()),
+                    false);
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
 
+    /**
+     * Returns the events that are not done and overlap the given event, in order of start time.
+     * Events without parsed times never clash.
+     *
+     * @param event The event to check
+     * @return A new TaskList containing the clashing events
+     */
+    public TaskList findClashes(Event event) {
+        ArrayList<Task> clashes = new ArrayList<>();
+        if (!event.isScheduled()) {
+            return new TaskList(clashes, false);
+        }
+        long stamp = lock.readLock();
+        try {
+            for (Task other : eventIndex.overlapping(event.getStart(), event.getEnd())) {
+                if (other != event && !other.isDone()) {
+                    clashes.add(other);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return new TaskList(clashes, false);
+    }
+
     /**
      * Returns the number of tasks in the list.
      *
@@ -133,12 +550,415 @@ public class TaskList {
     }
 
     /**
-     * Returns the internal list of tasks.
-     * Note: This provides direct access to the underlying list; modifications will affect the original data.
+     * Returns the number of deadlines in the list.
+     */
+    public int getDeadlineCount() {
+        return readCount(() -> deadlineCount);
+    }
+
+    /**
+     * Returns the number of events in the list.
+     */
+    public int getEventCount() {
+        return readCount(() -> eventCount);
+    }
+
+    /**
+     * Returns the whole list as it is now. Taking a snapshot copies nothing: it holds on to the current
+     * version of the list, which later changes leave untouched.
      *
-     * @return The full list of tasks.
+     * @return The current snapshot.
      */
-    public ArrayList<Task> getAllTasks() {
-        return tasks;
+    public Snapshot snapshot() {
+        long stamp = lock.tryOptimisticRead();
+        Snapshot current = snapshot;
+        long currentVersion = version;
+        if (current != null && current.version == currentVersion && lock.validate(stamp)) {
+            return current;
+        }
+        stamp = lock.readLock();
+        try {
+            current = snapshot;
+            if (current == null || current.version != version) {
+                current = new Snapshot(version, tasks, deadlineCount, eventCount, nextId);
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Sets how many steps {@link #undo(int)} can go back through. The oldest steps are also forgotten once
+     * the history holds more than about a million changes in all, which bounds the memory it can keep alive:
+     * each change keeps O(log n) tree nodes of an older version of the list.
+     *
+     * @param maxSteps The number of steps to keep; 0 turns undo off.
+     */
+    public void setHistoryLimit(int maxSteps) {
+        long stamp = lock.writeLock();
+        try {
+            historyStepLimit = maxSteps;
+            trimHistory();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Groups the changes made since the last checkpoint into one step, which {@link #undo(int)} reverts as a
+     * whole. Any steps that were undone can no longer be redone once a new step is recorded.
+     */
+    public void checkpoint() {
+        long stamp = lock.writeLock();
+        try {
+            if (pendingChanges.isEmpty()) {
+                return;
+            }
+            undoSteps.push(new Step(checkpointTasks, tasks, pendingChanges));
+            historyChangeCount += pendingChanges.size();
+            for (Step step : redoSteps) {
+                historyChangeCount -= step.changes.size();
+            }
+            redoSteps.clear();
+            startStep();
+            trimHistory();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reverts the changes made since the last checkpoint.
+     */
+    public void revertToCheckpoint() {
+        long stamp = lock.writeLock();
+        try {
+            moveTo(checkpointTasks, pendingChanges, false);
+            startStep();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reverts the most recent steps, newest first. Changes made since the last checkpoint are recorded as a
+     * step of their own first.
+     *
+     * @param count The number of steps to revert.
+     * @return The changes that were made to the list, in order, or an empty list if there is nothing to undo.
+     */
+    public List<Change> undo(int count) {
+        checkpoint();
+        long stamp = lock.writeLock();
+        try {
+            List<Change> applied = new ArrayList<>();
+            for (int i = 0; i < count && !undoSteps.isEmpty(); i++) {
+                Step step = undoSteps.pop();
+                applied.addAll(moveTo(step.before, step.changes, false));
+                redoSteps.push(step);
+            }
+            startStep();
+            return applied;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Re-applies the most recently undone steps, oldest first. Changes made since the last checkpoint are
+     * recorded as a step of their own first, which means there is nothing left to redo.
+     *
+     * @param count The number of steps to re-apply.
+     * @return The changes that were made to the list, in order, or an empty list if there is nothing to redo.
+     */
+    public List<Change> redo(int count) {
+        checkpoint();
+        long stamp = lock.writeLock();
+        try {
+            List<Change> applied = new ArrayList<>();
+            for (int i = 0; i < count && !redoSteps.isEmpty(); i++) {
+                Step step = redoSteps.pop();
+                applied.addAll(moveTo(step.after, step.changes, true));
+                undoSteps.push(step);
+            }
+            startStep();
+            return applied;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the changes made since the last checkpoint, in the order they were made.
+     *
+     * @return An unmodifiable copy of the changes.
+     */
+    public List<Change> getPendingChanges() {
+        long stamp = lock.readLock();
+        try {
+            return List.copyOf(pendingChanges);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns how many steps {@link #undo(int)} can revert.
+     */
+    public int getUndoStepCount() {
+        return readCount(undoSteps::size);
+    }
+
+    /**
+     * Returns how many steps {@link #redo(int)} can re-apply.
+     */
+    public int getRedoStepCount() {
+        return readCount(redoSteps::size);
+    }
+
+    /**
+     * Switches to another version of the list, one step's changes away from the current one, and brings the
+     * indexes along by applying those changes (or their inverses, newest first).
+     *
+     * @return The changes as they were applied.
+     */
+    private List<Change> moveTo(TaskVector target, List<Change> changes, boolean isForward) {
+        List<Change> applied = new ArrayList<>(changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            Change change = isForward ? changes.get(i) : changes.get(changes.size() - 1 - i).inverse();
+            if (change.removedTask == null) {
+                indexAdd(change.addedTask);
+            } else if (change.addedTask == null) {
+                indexRemove(change.removedTask);
+            } else {
+                indexReplace(change.removedTask, change.addedTask);
+            }
+            applied.add(change);
+        }
+        tasks = target;
+        version++;
+        return applied;
+    }
+
+    private void startStep() {
+        checkpointTasks = tasks;
+        pendingChanges = new ArrayList<>();
+    }
+
+    private void trimHistory() {
+        while (undoSteps.size() > historyStepLimit
+                || (!undoSteps.isEmpty() && historyChangeCount > MAX_HISTORY_CHANGES)) {
+            historyChangeCount -= undoSteps.removeLast().changes.size();
+        }
+    }
+
+    /**
+     * Stops a long loop if the thread running it was interrupted, which is how a query is cancelled.
+     * Only looks at the interrupt flag every few thousand iterations.
+     *
+     * @param iteration The loop counter.
+     * @throws CancellationException If the thread was interrupted.
+     */
+    static void checkCancelled(int iteration) {
+        if ((iteration & CANCEL_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Query cancelled");
+        }
+    }
+
+    /**
+     * Reads a count without locking, falling back to a read lock if the list changed while reading.
+     */
+    private int readCount(IntSupplier count) {
+        long stamp = lock.tryOptimisticRead();
+        int value = count.getAsInt();
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return count.getAsInt();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void checkIndex(int index) throws KiwiException {
+        if (index < 0 || index >= tasks.size()) {
+            throw new KiwiException("Invalid task number!");
+        }
+    }
+
+    private void checkIndices(int[] indices) throws KiwiException {
+        for (int i = 0; i < indices.length; i++) {
+            checkIndex(indices[i]);
+            if (i > 0 && indices[i] <= indices[i - 1]) {
+                throw new KiwiException("Task numbers must be in increasing order!");
+            }
+        }
+    }
+
+    /**
+     * Tells whether changing this many tasks one at a time, copying O(log n) nodes for each, is cheaper than
+     * rebuilding the whole vector. The same cutoff tells whether a record per change is cheaper to save than
+     * a snapshot of the whole list.
+     *
+     * @param count The number of tasks to change.
+     * @return True if {@code count * log2(size)} is less than the size of the list.
+     */
+    public boolean isCheaperOneByOne(int count) {
+        int size = tasks.size();
+        return (long) count * (Integer.SIZE - Integer.numberOfLeadingZeros(size)) < size;
+    }
+
+    private void indexAdd(Task task) {
+        countType(task, 1);
+        if (isIndexed) {
+            descriptionIndex.add(task);
+            deadlineIndex.add(task);
+            eventIndex.add(task);
+        }
+    }
+
+    private void indexRemove(Task task) {
+        countType(task, -1);
+        if (isIndexed) {
+            descriptionIndex.remove(task);
+            deadlineIndex.remove(task);
+            eventIndex.remove(task);
+        }
+    }
+
+    private void indexReplace(Task oldTask, Task newTask) {
+        countType(oldTask, -1);
+        countType(newTask, 1);
+        if (isIndexed) {
+            descriptionIndex.replace(oldTask, newTask);
+            deadlineIndex.replace(oldTask, newTask);
+            eventIndex.replace(oldTask, newTask);
+        }
+    }
+
+    private void countType(Task task, int delta) {
+        if (task instanceof Deadline) {
+            deadlineCount += delta;
+        } else if (task instanceof Event) {
+            eventCount += delta;
+        }
+    }
+
+    /**
+     * One change to the list: a task added, removed or replaced at a position.
+     */
+    public static final class Change {
+        private final int index;
+        private final Task removedTask;
+        private final Task addedTask;
+
+        private Change(int index, Task removedTask, Task addedTask) {
+            this.index = index;
+            this.removedTask = removedTask;
+            this.addedTask = addedTask;
+        }
+
+        /**
+         * Returns the 0-based position of the change: where the task was added, removed or replaced.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the task that was removed or replaced, or null if a task was added.
+         */
+        public Task getRemovedTask() {
+            return removedTask;
+        }
+
+        /**
+         * Returns the task that was added or put in place of another, or null if a task was removed.
+         */
+        public Task getAddedTask() {
+            return addedTask;
+        }
+
+        private Change inverse() {
+            return new Change(index, addedTask, removedTask);
+        }
+    }
+
+    /**
+     * The changes between two checkpoints, with the versions of the list before and after them.
+     */
+    private static final class Step {
+        private final TaskVector before;
+        private final TaskVector after;
+        private final List<Change> changes;
+
+        Step(TaskVector before, TaskVector after, List<Change> changes) {
+            this.before = before;
+            this.after = after;
+            this.changes = changes;
+        }
+    }
+
+    /**
+     * The task list as it was at one version. Snapshots can be read from any thread while the list keeps
+     * changing.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final List<Task> tasks;
+        private final int deadlineCount;
+        private final int eventCount;
+        private final long nextId;
+
+        private Snapshot(long version, TaskVector tasks, int deadlineCount, int eventCount, long nextId) {
+            this.version = version;
+            this.tasks = tasks.asList();
+            this.deadlineCount = deadlineCount;
+            this.eventCount = eventCount;
+            this.nextId = nextId;
+        }
+
+        /**
+         * Returns the version of the list this snapshot was taken at. Every change to the list increases it.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the tasks in list order.
+         *
+         * @return An unmodifiable list.
+         */
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Returns the number of tasks in the snapshot.
+         */
+        public int size() {
+            return tasks.size();
+        }
+
+        public int getDeadlineCount() {
+            return deadlineCount;
+        }
+
+        public int getEventCount() {
+            return eventCount;
+        }
+
+        /**
+         * Returns the id the list gives the next task added, which is what has to be saved for ids to stay unique
+         * across restarts.
+         */
+        public long getNextId() {
+            return nextId;
+        }
     }
 }
@@ -0,0 +1,341 @@
+package kiwi.command;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import kiwi.task.Task;
+
+/**
+ * An immutable, persistent sequence of tasks. Every change returns a new vector and leaves the old one as it
+ * was, sharing all but O(log n) of its nodes with it, so keeping many versions around costs little more than
+ * keeping one.
+ * <p>
+ * The vector is an AVL tree ordered by position, in which every node knows the size of its subtree. Getting,
+ * replacing, inserting and removing a task all take O(log n) time, and each change copies only the nodes on
+ * the path from the root to the task it touches.
+ * <p>
+ * In a task list, task ids increase along the vector, which makes the tree a search tree on ids as well:
+ * {@link #indexOfId(long)} finds a task's position from its id in O(log n).
+ */
+final class TaskVector {
+    static final TaskVector EMPTY = new TaskVector(null);
+
+    private final Node root;
+
+    private TaskVector(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds a balanced vector from a list of tasks in O(n).
+     *
+     * @param tasks The tasks in order.
+     * @return The new vector.
+     */
+    static TaskVector of(List<Task> tasks) {
+        return new TaskVector(build(tasks, 0, tasks.size()));
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns the task at a position.
+     *
+     * @throws IndexOutOfBoundsException If the position lies outside the vector.
+     */
+    Task get(int index) {
+        return nodeAt(index).task;
+    }
+
+    /**
+     * Returns the position of the task with the given id, searching the tree by id. Only meaningful if ids
+     * increase along the vector.
+     *
+     * @param id The task id.
+     * @return The 0-based position, or -1 if no task has that id.
+     */
+    int indexOfId(long id) {
+        Node node = root;
+        int before = 0;
+        while (node != null) {
+            long nodeId = node.task.getId();
+            if (id < nodeId) {
+                node = node.left;
+            } else if (id > nodeId) {
+                before += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return before + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a vector with the task at a position replaced.
+     *
+     * @throws IndexOutOfBoundsException If the position lies outside the vector.
+     */
+    TaskVector set(int index, Task task) {
+        checkIndex(index);
+        return new TaskVector(set(root, index, task));
+    }
+
+    /**
+     * Returns a vector with a task inserted at a position, moving the tasks from that position on one place
+     * along.
+     *
+     * @param index The position, from 0 up to and including the size of this vector.
+     * @param task The task to insert.
+     * @throws IndexOutOfBoundsException If the position lies outside the vector.
+     */
+    TaskVector insert(int index, Task task) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        return new TaskVector(insert(root, index, new Node(task, null, null)));
+    }
+
+    /**
+     * Returns a vector with the task at a position removed.
+     *
+     * @throws IndexOutOfBoundsException If the position lies outside the vector.
+     */
+    TaskVector remove(int index) {
+        checkIndex(index);
+        return new TaskVector(remove(root, index));
+    }
+
+    /**
+     * Returns the tasks in a range of positions in O(log n + k) time, walking the tree once rather than
+     * looking up every position.
+     *
+     * @param from The first position, inclusive.
+     * @param to The last position, exclusive.
+     * @return An immutable list of the tasks in the range.
+     * @throws IndexOutOfBoundsException If the range does not lie within the vector.
+     */
+    List<Task> slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length "
+                    + size());
+        }
+        Task[] slice = new Task[to - from];
+        InOrderIterator iterator = new InOrderIterator(root, from);
+        for (int i = 0; i < slice.length; i++) {
+            slice[i] = iterator.next();
+        }
+        return List.of(slice);
+    }
+
+    /**
+     * Returns an unmodifiable list view of this vector. Getting an element costs O(log n); iterating over the
+     * whole list costs O(n).
+     */
+    List<Task> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return TaskVector.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return TaskVector.this.size();
+            }
+
+            @Override
+            public Iterator<Task> iterator() {
+                return new InOrderIterator(root, 0);
+            }
+        };
+    }
+
+    private Node nodeAt(int index) {
+        checkIndex(index);
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+    }
+
+    private static Node build(List<Task> tasks, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(tasks.get(middle), build(tasks, from, middle), build(tasks, middle + 1, to));
+    }
+
+    private static Node set(Node node, int index, Task task) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return node.with(set(node.left, index, task), node.right);
+        } else if (index > leftSize) {
+            return node.with(node.left, set(node.right, index - leftSize - 1, task));
+        }
+        return new Node(task, node.left, node.right);
+    }
+
+    private static Node insert(Node node, int index, Node added) {
+        if (node == null) {
+            return added;
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return rebalance(node.task, insert(node.left, index, added), node.right);
+        }
+        return rebalance(node.task, node.left, insert(node.right, index - leftSize - 1, added));
+    }
+
+    private static Node remove(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return rebalance(node.task, remove(node.left, index), node.right);
+        } else if (index > leftSize) {
+            return rebalance(node.task, node.left, remove(node.right, index - leftSize - 1));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return rebalance(successor.task, node.left, remove(node.right, 0));
+    }
+
+    private static Node rebalance(Task task, Node left, Node right) {
+        int balance = height(left) - height(right);
+        if (balance > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left.task, left.left, left.right);
+            }
+            return rotateRight(task, left, right);
+        }
+        if (balance < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.task, right.left, right.right);
+            }
+            return rotateLeft(task, left, right);
+        }
+        return new Node(task, left, right);
+    }
+
+    private static Node rotateLeft(Task task, Node left, Node right) {
+        Node newLeft = new Node(task, left, right.left);
+        return new Node(right.task, newLeft, right.right);
+    }
+
+    private static Node rotateRight(Task task, Node left, Node right) {
+        Node newRight = new Node(task, left.right, right);
+        return new Node(left.task, left.left, newRight);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * A node of the tree. Nodes are never changed after they are created, so they can be shared between
+     * any number of vectors.
+     */
+    private static final class Node {
+        private final Task task;
+        private final Node left;
+        private final Node right;
+        private final int size;
+        private final int height;
+
+        Node(Task task, Node left, Node right) {
+            this.task = task;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+
+        /**
+         * Returns a copy of this node with new children of the same heights as the old ones, which needs no
+         * rebalancing.
+         */
+        Node with(Node newLeft, Node newRight) {
+            return new Node(task, newLeft, newRight);
+        }
+    }
+
+    /**
+     * Walks the tree in order with an explicit stack, visiting each node once.
+     */
+    private static final class InOrderIterator implements Iterator<Task> {
+        private final ArrayDeque<Node> path = new ArrayDeque<>();
+
+        /**
+         * Starts the walk at a position, keeping on the stack only the nodes at or after it.
+         */
+        InOrderIterator(Node root, int from) {
+            Node node = root;
+            while (node != null) {
+                int leftSize = size(node.left);
+                if (from < leftSize) {
+                    path.push(node);
+                    node = node.left;
+                } else if (from == leftSize) {
+                    path.push(node);
+                    return;
+                } else {
+                    from -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public Task next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node node = path.pop();
+            pushLeft(node.right);
+            return node.task;
+        }
+
+        private void pushLeft(Node node) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+        }
+    }
+}
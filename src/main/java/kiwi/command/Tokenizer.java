@@ -0,0 +1,79 @@
+package kiwi.command;
+
+/**
+ * Scans command arguments in place. All methods work on offsets into a {@link CharSequence}, so the only
+ * strings created are the trimmed values handed back to the caller.
+ */
+final class Tokenizer {
+    private Tokenizer() {
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code needle} at or after {@code from}, or -1.
+     */
+    static int indexOf(CharSequence text, String needle, int from) {
+        int last = text.length() - needle.length();
+        char first = needle.charAt(0);
+        for (int i = from; i <= last; i++) {
+            if (text.charAt(i) == first && regionMatches(text, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the next occurrence of {@code c} at or after {@code from}, or the text's length.
+     */
+    static int nextOrEnd(CharSequence text, char c, int from) {
+        int length = text.length();
+        for (int i = from; i < length; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns whether {@code text} contains {@code needle} starting at {@code offset}.
+     */
+    static boolean regionMatches(CharSequence text, int offset, String needle) {
+        if (offset + needle.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < needle.length(); i++) {
+            if (text.charAt(offset + i) != needle.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether {@code [from, to)} holds only whitespace.
+     */
+    static boolean isBlank(CharSequence text, int from, int to) {
+        return start(text, from, to) == to;
+    }
+
+    /**
+     * Returns {@code [from, to)} without leading and trailing whitespace, as a new string.
+     */
+    static String trimmed(CharSequence text, int from, int to) {
+        int start = start(text, from, to);
+        int end = to;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+    private static int start(CharSequence text, int from, int to) {
+        int start = from;
+        while (start < to && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+}
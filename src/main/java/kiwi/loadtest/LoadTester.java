@@ -0,0 +1,291 @@
+package kiwi.loadtest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import kiwi.CommandResult;
+import kiwi.Kiwi;
+import kiwi.command.CommandRegistry;
+import kiwi.command.CommandType;
+import kiwi.exception.KiwiException;
+import kiwi.metrics.LatencyHistogram;
+import kiwi.storage.SnapshotFormat;
+import kiwi.storage.Storage;
+
+/**
+ * Replays a generated workload against Kiwi and reports latency percentiles and throughput for each command.
+ * Kiwi runs on a copy of a generated task file in a temporary directory, so no real data is touched.
+ * <p>
+ * In closed-loop mode each command starts as soon as the previous one has finished, which measures the best
+ * throughput. In open-loop mode commands arrive at a fixed rate whether or not Kiwi keeps up, and each latency
+ * is measured from when the command was due rather than when it started, so time spent waiting behind a slow
+ * command is counted too.
+ * <p>
+ * Usage: {@code java -cp kiwi.jar kiwi.loadtest.LoadTester [options]}
+ * <ul>
+ *   <li>{@code --size N}: tasks in the list before the first command, 10000 by default.</li>
+ *   <li>{@code --tasks MIX}: the share of todos, deadlines and events in that list, one of
+ *       {@link SyntheticTasks.Mix}; {@code BALANCED} by default.</li>
+ *   <li>{@code --commands N}: commands to measure, 100000 by default.</li>
+ *   <li>{@code --warmup N}: commands to run first without measuring them, 10000 by default.</li>
+ *   <li>{@code --mix SPEC}: the command mix, e.g. {@code add=30,find=20,mark=10}; see {@link Workload.Kind}.</li>
+ *   <li>{@code --mode closed|open}: how commands are paced, closed by default.</li>
+ *   <li>{@code --rate N}: commands per second in open-loop mode.</li>
+ *   <li>{@code --seed N}: the seed for the workload, 42 by default.</li>
+ *   <li>{@code --out FILE}: where to write the JSON report, {@code loadtest-results.json} by default.</li>
+ * </ul>
+ */
+public class LoadTester {
+    private static final String USAGE = "Usage: kiwi.loadtest.LoadTester [--size N] [--tasks MIX] [--commands N]"
+            + " [--warmup N] [--mix SPEC] [--mode closed|open] [--rate N] [--seed N] [--out FILE]";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private int size = 10_000;
+    private SyntheticTasks.Mix taskMix = SyntheticTasks.Mix.BALANCED;
+    private int commandCount = 100_000;
+    private int warmupCount = 10_000;
+    private Map<Workload.Kind, Integer> weights = Workload.defaultWeights();
+    private boolean isOpenLoop = false;
+    private double rate;
+    private long seed = 42;
+    private Path outPath = Path.of("loadtest-results.json");
+
+    private final Map<CommandType, LatencyHistogram> latencies = new EnumMap<>(CommandType.class);
+    private final Map<CommandType, Long> errors = new EnumMap<>(CommandType.class);
+    private final LatencyHistogram allLatencies = new LatencyHistogram();
+    private long errorCount;
+    private long elapsedNanos;
+
+    /**
+     * Parses the options, runs the workload and writes the report.
+     *
+     * @param args The command-line options, see the class description.
+     */
+    public static void main(String[] args) {
+        LoadTester tester = new LoadTester();
+        try {
+            tester.parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        try {
+            tester.run();
+            tester.writeReport();
+        } catch (IOException | KiwiException e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            System.exit(2);
+        }
+        System.out.print(tester.formatSummary());
+    }
+
+    private void parseOptions(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (++i == args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[i];
+            switch (option) {
+            case "--size":
+                size = Integer.parseInt(value);
+                break;
+            case "--tasks":
+                taskMix = SyntheticTasks.Mix.valueOf(value.toUpperCase());
+                break;
+            case "--commands":
+                commandCount = Integer.parseInt(value);
+                break;
+            case "--warmup":
+                warmupCount = Integer.parseInt(value);
+                break;
+            case "--mix":
+                weights = Workload.parseWeights(value);
+                break;
+            case "--mode":
+                if (!value.equals("open") && !value.equals("closed")) {
+                    throw new IllegalArgumentException("Unknown mode: " + value);
+                }
+                isOpenLoop = value.equals("open");
+                break;
+            case "--rate":
+                rate = Double.parseDouble(value);
+                break;
+            case "--seed":
+                seed = Long.parseLong(value);
+                break;
+            case "--out":
+                outPath = Path.of(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (isOpenLoop && rate <= 0) {
+            throw new IllegalArgumentException("Open-loop mode needs a positive --rate");
+        }
+    }
+
+    /**
+     * Generates the task file and the commands, then replays the commands against a fresh Kiwi.
+     */
+    private void run() throws IOException, KiwiException {
+        Path directory = Files.createTempDirectory("kiwi-loadtest");
+        try {
+            String filePath = directory.resolve("kiwi.txt").toString();
+            Storage storage = new Storage(filePath);
+            storage.setSnapshotFormat(SnapshotFormat.BINARY);
+            storage.save(SyntheticTasks.generate(size, taskMix));
+            storage.close();
+
+            Workload workload = new Workload(weights, size, seed);
+            List<String> commands = new ArrayList<>(warmupCount + commandCount);
+            for (int i = 0; i < warmupCount + commandCount; i++) {
+                commands.add(workload.next());
+            }
+
+            Kiwi kiwi = new Kiwi(filePath);
+            for (int i = 0; i < warmupCount; i++) {
+                kiwi.execute(commands.get(i)).getText();
+            }
+            replay(kiwi, commands.subList(warmupCount, commands.size()));
+            kiwi.getResponse("bye");
+            kiwi.close();
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private void replay(Kiwi kiwi, List<String> commands) {
+        long periodNanos = isOpenLoop ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < commands.size(); i++) {
+            String command = commands.get(i);
+            long due = System.nanoTime();
+            if (isOpenLoop) {
+                due = start + i * periodNanos;
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    // Parking can oversleep by tens of microseconds, which would count as latency; spin the rest.
+                    if (wait > SPIN_NANOS) {
+                        LockSupport.parkNanos(wait - SPIN_NANOS);
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+            CommandResult result = kiwi.execute(command);
+            result.getText();
+            long latency = System.nanoTime() - due;
+
+            // The workload only generates known commands, so the type is never null.
+            CommandType type = CommandRegistry.lookup(command);
+            latencies.computeIfAbsent(type, t -> new LatencyHistogram()).record(latency);
+            allLatencies.record(latency);
+            if (!result.isSuccess()) {
+                errors.merge(type, 1L, Long::sum);
+                errorCount++;
+            }
+        }
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    private void writeReport() throws IOException {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"mode\": \"").append(isOpenLoop ? "open" : "closed").append("\",\n");
+        if (isOpenLoop) {
+            json.append("  \"targetRatePerSecond\": ").append(format(rate)).append(",\n");
+        }
+        json.append("  \"initialSize\": ").append(size).append(",\n");
+        json.append("  \"taskMix\": \"").append(taskMix).append("\",\n");
+        json.append("  \"commandMix\": {");
+        String separator = "";
+        for (Map.Entry<Workload.Kind, Integer> entry : weights.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey().name().toLowerCase()).append("\": ")
+                    .append(entry.getValue());
+            separator = ", ";
+        }
+        json.append("},\n");
+        json.append("  \"seed\": ").append(seed).append(",\n");
+        json.append("  \"warmupCommands\": ").append(warmupCount).append(",\n");
+        json.append("  \"elapsedSeconds\": ").append(format(elapsedNanos / 1e9)).append(",\n");
+        json.append("  \"all\": ");
+        appendStats(json, allLatencies, errorCount);
+        json.append(",\n  \"commands\": {");
+        separator = "\n";
+        for (Map.Entry<CommandType, LatencyHistogram> entry : latencies.entrySet()) {
+            json.append(separator).append("    \"").append(nameOf(entry.getKey())).append("\": ");
+            appendStats(json, entry.getValue(), errors.getOrDefault(entry.getKey(), 0L));
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+
+        Path parent = outPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(outPath, StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private void appendStats(StringBuilder json, LatencyHistogram histogram, long errorTotal) {
+        json.append("{\"count\": ").append(histogram.getCount())
+                .append(", \"errors\": ").append(errorTotal)
+                .append(", \"throughputPerSecond\": ").append(format(histogram.getCount() * 1e9 / elapsedNanos))
+                .append(", \"meanMicros\": ").append(format(histogram.getMean() / 1e3));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            json.append(", \"").append(PERCENTILE_NAMES[i]).append("Micros\": ")
+                    .append(format(histogram.getPercentile(PERCENTILES[i]) / 1e3));
+        }
+        json.append(", \"maxMicros\": ").append(format(histogram.getMax() / 1e3)).append('}');
+    }
+
+    private String formatSummary() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "%,d commands in %.2f s (%.0f/s), %,d errors. Report written to %s%n",
+                allLatencies.getCount(), elapsedNanos / 1e9, allLatencies.getCount() * 1e9 / elapsedNanos,
+                errorCount, outPath));
+        summary.append(String.format(Locale.ROOT, "%-10s %10s %10s %10s %10s %10s%n",
+                "command", "count", "p50 us", "p99 us", "p99.9 us", "max us"));
+        latencies.forEach((type, histogram) -> summary.append(formatRow(nameOf(type), histogram)));
+        summary.append(formatRow("all", allLatencies));
+        return summary.toString();
+    }
+
+    private static String formatRow(String name, LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "%-10s %10d %10.1f %10.1f %10.1f %10.1f%n", name, histogram.getCount(),
+                histogram.getPercentile(0.5) / 1e3, histogram.getPercentile(0.99) / 1e3,
+                histogram.getPercentile(0.999) / 1e3, histogram.getMax() / 1e3);
+    }
+
+    private static String nameOf(CommandType type) {
+        return type.getKeyword();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package kiwi.loadtest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Random;
+
+import kiwi.task.Deadline;
+import kiwi.task.Event;
+import kiwi.task.Task;
+import kiwi.task.Todo;
+
+/**
+ * Generates reproducible task lists for the benchmarks and the load tester. Descriptions mix a few common words
+ * with a rare, numbered word ({@code w123}), deadlines and events are spread over {@link #YEAR}, and a quarter of
+ * the tasks are done. The same size and mix always give the same list.
+ */
+public final class SyntheticTasks {
+    /** The year all generated deadlines and events fall in. */
+    public static final int YEAR = 2025;
+
+    private static final String[] WORDS = {"read", "book", "report", "meeting", "buy", "milk", "team", "lecture",
+        "tutorial", "project", "submit", "review", "call", "gym", "groceries", "email"};
+    private static final long SEED = 42;
+
+    /**
+     * The share of each task type in a generated list, in percent.
+     */
+    public enum Mix {
+        TODOS(100, 0),
+        BALANCED(34, 33),
+        DEADLINES(10, 80),
+        EVENTS(10, 10);
+
+        private final int todoPercent;
+        private final int deadlinePercent;
+
+        Mix(int todoPercent, int deadlinePercent) {
+            this.todoPercent = todoPercent;
+            this.deadlinePercent = deadlinePercent;
+        }
+    }
+
+    private SyntheticTasks() {
+    }
+
+    /**
+     * Generates a task list.
+     *
+     * @param size The number of tasks.
+     * @param mix The share of todos, deadlines and events.
+     * @return A new, modifiable list.
+     */
+    public static ArrayList<Task> generate(int size, Mix mix) {
+        Random random = new Random(SEED);
+        ArrayList<Task> tasks = new ArrayList<>(size);
+        int rareWords = Math.max(1, size / 10);
+        for (int i = 0; i < size; i++) {
+            String description = description(random, rareWords);
+            LocalDate date = LocalDate.ofYearDay(YEAR, 1 + random.nextInt(365));
+            int hour = 8 + random.nextInt(12);
+            int roll = random.nextInt(100);
+            Task task;
+            if (roll < mix.todoPercent) {
+                task = new Todo(description);
+            } else if (roll < mix.todoPercent + mix.deadlinePercent) {
+                task = new Deadline(description, date, LocalTime.of(hour, 0));
+            } else {
+                LocalTime start = LocalTime.of(hour, 0);
+                task = new Event(description, date + " " + start, start.plusHours(1 + random.nextInt(3)).toString());
+            }
+            if (random.nextInt(4) == 0) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns a description of two common words and one numbered word, like those in generated lists.
+     *
+     * @param random The source of randomness.
+     * @param rareWords How many different numbered words to choose from.
+     * @return The description.
+     */
+    static String description(Random random, int rareWords) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                + " w" + random.nextInt(rareWords);
+    }
+
+    /**
+     * Returns one of the common words used in descriptions.
+     *
+     * @param random The source of randomness.
+     * @return The word.
+     */
+    static String commonWord(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
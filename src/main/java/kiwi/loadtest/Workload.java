@@ -0,0 +1,163 @@
+package kiwi.loadtest;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates a reproducible stream of commands in configurable proportions, the way a user with a long task
+ * list might type them. The generator tracks how many tasks the list will hold after each command, so every
+ * task number it produces is valid when the commands run in order.
+ */
+public final class Workload {
+    /**
+     * A kind of command the workload can generate, with its default share of the mix.
+     */
+    public enum Kind {
+        ADD(30),
+        MARK(15),
+        UNMARK(5),
+        FIND(20),
+        EDIT(10),
+        DELETE(10),
+        LIST(5),
+        AGENDA(5);
+
+        private final int defaultWeight;
+
+        Kind(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+        }
+    }
+
+    private final Map<Kind, Integer> weights;
+    private final int totalWeight;
+    private final Random random;
+    private final int rareWords;
+    private int size;
+
+    /**
+     * Creates a workload for a list that starts with the given number of tasks.
+     *
+     * @param weights The relative weight of each kind of command; kinds not in the map are never generated.
+     * @param initialSize The number of tasks in the list before the first command.
+     * @param seed The seed that makes the stream reproducible.
+     */
+    public Workload(Map<Kind, Integer> weights, int initialSize, long seed) {
+        this.weights = new EnumMap<>(weights);
+        this.totalWeight = this.weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("The command mix needs at least one positive weight");
+        }
+        this.random = new Random(seed);
+        this.rareWords = Math.max(1, initialSize / 10);
+        this.size = initialSize;
+    }
+
+    /**
+     * Returns the default mix: mostly adds, finds and marks, with some edits, deletes and listing.
+     *
+     * @return A new, modifiable map of weights.
+     */
+    public static Map<Kind, Integer> defaultWeights() {
+        Map<Kind, Integer> weights = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            weights.put(kind, kind.defaultWeight);
+        }
+        return weights;
+    }
+
+    /**
+     * Parses a mix such as {@code add=30,find=20,mark=10}.
+     *
+     * @param text Comma-separated {@code kind=weight} pairs.
+     * @return The weights.
+     * @throws IllegalArgumentException If a kind is unknown or a weight is not a non-negative integer.
+     */
+    public static Map<Kind, Integer> parseWeights(String text) {
+        Map<Kind, Integer> weights = new EnumMap<>(Kind.class);
+        for (String pair : text.split(",")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected kind=weight but got: " + pair);
+            }
+            Kind kind = Kind.valueOf(pair.substring(0, equals).trim().toUpperCase());
+            int weight = Integer.parseInt(pair.substring(equals + 1).trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights cannot be negative: " + pair);
+            }
+            weights.put(kind, weight);
+        }
+        return weights;
+    }
+
+    /**
+     * Returns the next command.
+     *
+     * @return The command, exactly as a user would type it.
+     */
+    public String next() {
+        Kind kind = pickKind();
+        if (size == 0 && kind != Kind.ADD && kind != Kind.FIND && kind != Kind.LIST && kind != Kind.AGENDA) {
+            kind = Kind.ADD;
+        }
+        switch (kind) {
+        case ADD:
+            size++;
+            return nextAdd();
+        case MARK:
+            return "mark " + randomTaskNumber();
+        case UNMARK:
+            return "unmark " + randomTaskNumber();
+        case FIND:
+            String keyword = random.nextBoolean() ? SyntheticTasks.commonWord(random) : "w" + random.nextInt(rareWords);
+            return "find " + keyword;
+        case EDIT:
+            return "edit " + randomTaskNumber() + " /desc " + SyntheticTasks.description(random, rareWords);
+        case DELETE:
+            String command = "delete " + randomTaskNumber();
+            size--;
+            return command;
+        case LIST:
+            return random.nextBoolean() ? "list" : "list page " + (1 + random.nextInt(Math.max(1, size / 20)));
+        case AGENDA:
+            return "agenda " + randomDate();
+        default:
+            throw new AssertionError(kind);
+        }
+    }
+
+    private Kind pickKind() {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<Kind, Integer> entry : weights.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new AssertionError(roll);
+    }
+
+    private String nextAdd() {
+        String description = SyntheticTasks.description(random, rareWords);
+        int hour = 8 + random.nextInt(12);
+        switch (random.nextInt(3)) {
+        case 0:
+            return "todo " + description;
+        case 1:
+            return "deadline " + description + " /by " + randomDate() + String.format(" %02d:00", hour);
+        default:
+            return "event " + description + " /from " + randomDate() + String.format(" %02d:00 /to %02d:00", hour,
+                    hour + 1 + random.nextInt(3));
+        }
+    }
+
+    private int randomTaskNumber() {
+        return 1 + random.nextInt(size);
+    }
+
+    private LocalDate randomDate() {
+        return LocalDate.ofYearDay(SyntheticTasks.YEAR, 1 + random.nextInt(365));
+    }
+}
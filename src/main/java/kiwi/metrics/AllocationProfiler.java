@@ -0,0 +1,90 @@
+package kiwi.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import kiwi.command.CommandType;
+
+/**
+ * Counts the bytes each command type allocates, using the per-thread allocation counter of the JVM's
+ * {@link com.sun.management.ThreadMXBean}. Only allocations made by the thread running the command are seen,
+ * which is all of them as long as commands do not hand work to other threads.
+ */
+public final class AllocationProfiler {
+    private static final CommandType[] COMMAND_TYPES = CommandType.values();
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final AtomicLongArray counts = new AtomicLongArray(COMMAND_TYPES.length);
+    private final AtomicLongArray bytes = new AtomicLongArray(COMMAND_TYPES.length);
+    private final LongAdder unknownCount = new LongAdder();
+    private final LongAdder unknownBytes = new LongAdder();
+
+    private AllocationProfiler(com.sun.management.ThreadMXBean threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Creates a profiler and turns on allocation counting in the JVM.
+     *
+     * @return The profiler.
+     * @throws UnsupportedOperationException If this JVM cannot count allocations per thread.
+     */
+    public static AllocationProfiler create() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            throw new UnsupportedOperationException("This JVM cannot count allocated bytes per thread");
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("This JVM cannot count allocated bytes per thread");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return new AllocationProfiler(threads);
+    }
+
+    /**
+     * Returns how many bytes the current thread has allocated so far.
+     */
+    public long getAllocatedBytes() {
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Records the bytes one command allocated.
+     *
+     * @param type The command type, or null if the command was not recognised.
+     * @param allocatedBytes The bytes allocated while the command ran.
+     */
+    public void record(CommandType type, long allocatedBytes) {
+        if (type == null) {
+            unknownCount.increment();
+            unknownBytes.add(allocatedBytes);
+            return;
+        }
+        counts.incrementAndGet(type.ordinal());
+        bytes.addAndGet(type.ordinal(), allocatedBytes);
+    }
+
+    /**
+     * Returns how many commands of one type were recorded.
+     */
+    public long getCount(CommandType type) {
+        return counts.get(type.ordinal());
+    }
+
+    /**
+     * Returns the total bytes allocated by commands of one type.
+     */
+    public long getBytes(CommandType type) {
+        return bytes.get(type.ordinal());
+    }
+
+    public long getUnknownCount() {
+        return unknownCount.sum();
+    }
+
+    public long getUnknownBytes() {
+        return unknownBytes.sum();
+    }
+}
@@ -0,0 +1,53 @@
+package kiwi.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import kiwi.command.CommandType;
+
+/**
+ * A Flight Recorder event covering one command, from dispatch until the command has done its work.
+ * Formatting the reply happens later and is not included.
+ */
+@Name("kiwi.Command")
+@Label("Command")
+@Category("Kiwi")
+@Description("A command run by Kiwi, not counting formatting its reply")
+@StackTrace(false)
+public final class CommandEvent extends Event {
+    @Label("Command")
+    @Description("The command keyword, or empty if the command was not recognised")
+    private String command;
+
+    @Label("Input Length")
+    private int inputLength;
+
+    @Label("Success")
+    private boolean isSuccess;
+
+    @Label("Task Count")
+    @Description("The number of tasks after the command")
+    private int taskCount;
+
+    /**
+     * Ends the event and commits it if Flight Recorder is recording it. Call {@link #begin()} first.
+     *
+     * @param type The command type, or null if the command was not recognised.
+     * @param input The user's input.
+     * @param isSuccess Whether the command succeeded.
+     * @param taskCount The number of tasks after the command.
+     */
+    public void finish(CommandType type, String input, boolean isSuccess, int taskCount) {
+        end();
+        if (shouldCommit()) {
+            this.command = type == null ? "" : type.getKeyword();
+            this.inputLength = input.length();
+            this.isSuccess = isSuccess;
+            this.taskCount = taskCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package kiwi.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event covering handing out a dialog box, either from the pool or newly built.
+ */
+@Name("kiwi.DialogBox")
+@Label("Dialog Box")
+@Category({"Kiwi", "GUI"})
+@Description("Handing out a dialog box for one message")
+public final class DialogBoxEvent extends Event {
+    @Label("Kiwi")
+    @Description("Whether the dialog box shows Kiwi's messages rather than the user's")
+    private boolean isKiwi;
+
+    @Label("Reused")
+    @Description("Whether the dialog box came from the pool instead of being built")
+    private boolean isReused;
+
+    /**
+     * Ends the event and commits it if Flight Recorder is recording it. Call {@link #begin()} first.
+     *
+     * @param isKiwi Whether the dialog box shows Kiwi's messages.
+     * @param isReused Whether the dialog box came from the pool.
+     */
+    public void finish(boolean isKiwi, boolean isReused) {
+        end();
+        if (shouldCommit()) {
+            this.isKiwi = isKiwi;
+            this.isReused = isReused;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package kiwi.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import kiwi.command.CommandType;
+
+/**
+ * Collects counters and latency histograms for commands and storage I/O while Kiwi runs.
+ * <p>
+ * Recording never blocks and never allocates once a command type has been seen, so it is cheap enough to leave
+ * on for every command. Values may be recorded and read from different threads; a read taken while a command
+ * or write is in flight may not include it yet.
+ */
+public final class Metrics {
+    private static final CommandType[] COMMAND_TYPES = CommandType.values();
+
+    private final AtomicReferenceArray<LatencyHistogram> commandLatencies =
+            new AtomicReferenceArray<>(COMMAND_TYPES.length);
+    private final LongAdder[] commandErrors = new LongAdder[COMMAND_TYPES.length];
+    private final LongAdder unknownCommands = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LatencyHistogram snapshotLatency = new LatencyHistogram();
+    private final LongAdder snapshotBytes = new LongAdder();
+    private final LatencyHistogram journalLatency = new LatencyHistogram();
+    private final LongAdder journalRecords = new LongAdder();
+    private final LongAdder journalBytes = new LongAdder();
+
+    /**
+     * Creates an empty set of metrics.
+     */
+    public Metrics() {
+        for (int i = 0; i < commandErrors.length; i++) {
+            commandErrors[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one command.
+     *
+     * @param type The command type, or null if the command was not recognised.
+     * @param nanos How long the command took, not counting formatting its reply.
+     * @param isSuccess Whether the command succeeded.
+     */
+    public void recordCommand(CommandType type, long nanos, boolean isSuccess) {
+        if (type == null) {
+            unknownCommands.increment();
+            return;
+        }
+        int ordinal = type.ordinal();
+        LatencyHistogram histogram = commandLatencies.get(ordinal);
+        if (histogram == null) {
+            commandLatencies.compareAndSet(ordinal, null, new LatencyHistogram());
+            histogram = commandLatencies.get(ordinal);
+        }
+        histogram.record(nanos);
+        if (!isSuccess) {
+            commandErrors[ordinal].increment();
+        }
+    }
+
+    /**
+     * Records loading the task list from disk.
+     *
+     * @param nanos How long the load took, including replaying the journal.
+     */
+    public void recordLoad(long nanos) {
+        loadLatency.record(nanos);
+    }
+
+    /**
+     * Records writing a full snapshot of the task list.
+     *
+     * @param nanos How long the write took.
+     * @param bytes The size of the snapshot file.
+     */
+    public void recordSnapshot(long nanos, long bytes) {
+        snapshotLatency.record(nanos);
+        snapshotBytes.add(bytes);
+    }
+
+    /**
+     * Records one group of journal records written together.
+     *
+     * @param nanos How long the write took.
+     * @param records The number of records in the group.
+     * @param bytes The number of bytes appended to the journal.
+     */
+    public void recordJournalWrite(long nanos, int records, long bytes) {
+        journalLatency.record(nanos);
+        journalRecords.add(records);
+        journalBytes.add(bytes);
+    }
+
+    /**
+     * Returns the latencies of one command type, or null if no such command has run.
+     */
+    public LatencyHistogram getCommandLatency(CommandType type) {
+        return commandLatencies.get(type.ordinal());
+    }
+
+    /**
+     * Returns how many commands of one type failed.
+     */
+    public long getCommandErrors(CommandType type) {
+        return commandErrors[type.ordinal()].sum();
+    }
+
+    public long getUnknownCommands() {
+        return unknownCommands.sum();
+    }
+
+    public LatencyHistogram getLoadLatency() {
+        return loadLatency;
+    }
+
+    public LatencyHistogram getSnapshotLatency() {
+        return snapshotLatency;
+    }
+
+    public long getSnapshotBytes() {
+        return snapshotBytes.sum();
+    }
+
+    public LatencyHistogram getJournalLatency() {
+        return journalLatency;
+    }
+
+    public long getJournalRecords() {
+        return journalRecords.sum();
+    }
+
+    public long getJournalBytes() {
+        return journalBytes.sum();
+    }
+}
@@ -0,0 +1,73 @@
+package kiwi.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Appends a timestamped stats report to a file at a fixed interval, on a background daemon thread.
+ * A failed write is reported on standard error and retried at the next interval.
+ */
+public final class StatsDumper {
+    private final Path file;
+    private final Supplier<String> report;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kiwi-stats");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a dumper. Nothing is written until {@link #start(long)} is called.
+     *
+     * @param file The file to append reports to; missing parent directories are created.
+     * @param report Formats the current report.
+     */
+    public StatsDumper(Path file, Supplier<String> report) {
+        this.file = file;
+        this.report = report;
+    }
+
+    /**
+     * Starts writing a report every interval, the first one after one interval.
+     *
+     * @param intervalSeconds The time between reports, in seconds.
+     */
+    public void start(long intervalSeconds) {
+        scheduler.scheduleAtFixedRate(this::dump, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops writing reports and writes one last report.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+        dump();
+    }
+
+    private synchronized void dump() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND)) {
+                writer.write("=== " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + " ===\n");
+                writer.write(report.get());
+                writer.write("\n\n");
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Kiwi: could not write stats to " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package kiwi.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event covering a load of the task file or a write of a full snapshot.
+ */
+@Name("kiwi.Storage")
+@Label("Storage")
+@Category("Kiwi")
+@Description("Loading the task file or writing a full snapshot of it")
+@StackTrace(false)
+public final class StorageEvent extends Event {
+    @Label("Operation")
+    @Description("load, or snapshot for a save or a background compaction")
+    private String operation;
+
+    @Label("Format")
+    private String format;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Snapshot Size")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Ends the event and commits it if Flight Recorder is recording it. Call {@link #begin()} first.
+     *
+     * @param operation What was done: {@code load} or {@code snapshot}.
+     * @param format The snapshot format that was read or written.
+     * @param taskCount The number of tasks loaded or written.
+     * @param bytes The size of the snapshot file.
+     */
+    public void finish(String operation, String format, int taskCount, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.format = format;
+            this.taskCount = taskCount;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package kiwi.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import kiwi.CommandResult;
+import kiwi.Kiwi;
+
+/**
+ * Serves Kiwi to many users from one process over a local socket, using the line protocol described in
+ * {@link Protocol}. Only connections from this machine are accepted.
+ * <p>
+ * Every connection runs on its own thread, a virtual thread where the JVM has them. Each user has a separate
+ * task file, {@code <data directory>/<user>.txt}, which is loaded into its own {@link Kiwi} when the user
+ * connects. The Kiwi is closed, writing out its journal and stopping its threads, when the user's last
+ * connection ends, so only users who are connected hold threads and open files. A user may hold several
+ * connections at once; their commands run one at a time against that user's task list, while different users
+ * never wait for each other. A batch belongs to the connection that began it: the user's other connections are
+ * turned away until it is committed or rolled back, and it is rolled back if its connection goes away first.
+ * <p>
+ * Usage: {@code java -cp kiwi.jar kiwi.server.KiwiServer [--port N] [--data DIR]}
+ */
+public class KiwiServer implements Closeable {
+    private static final int DEFAULT_PORT = 5678;
+    private static final String DEFAULT_DATA_DIRECTORY = "./data/users";
+    private static final Pattern USER_NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final String USAGE = "Usage: kiwi.server.KiwiServer [--port N] [--data DIR]";
+
+    private final Path dataDirectory;
+    private final ConcurrentMap<String, UserSession> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService connections = Threads.newThreadPerTaskExecutor("kiwi-connection");
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+
+    /**
+     * Creates a server that keeps each user's tasks in the given directory.
+     *
+     * @param dataDirectory The directory holding one task file per user.
+     */
+    public KiwiServer(Path dataDirectory) {
+        this.dataDirectory = dataDirectory;
+    }
+
+    /**
+     * Runs a server until the JVM is stopped.
+     *
+     * @param args {@code [--port N] [--data DIR]}.
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        String dataDirectory = DEFAULT_DATA_DIRECTORY;
+        try {
+            if (args.length % 2 != 0) {
+                throw new IllegalArgumentException("Every option needs a value");
+            }
+            for (int i = 0; i < args.length; i += 2) {
+                switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--data":
+                    dataDirectory = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        KiwiServer server = new KiwiServer(Path.of(dataDirectory));
+        try {
+            int boundPort = server.start(port);
+            System.out.println("Kiwi is serving " + dataDirectory + " on localhost:" + boundPort);
+        } catch (IOException e) {
+            System.err.println("Could not start the server: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The port the server is listening on.
+     * @throws IOException If the port cannot be opened.
+     */
+    public int start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptConnections, "kiwi-server");
+        acceptor.start();
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and then every user's Kiwi, which writes out their
+     * journaled changes.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+        // Blocking socket reads ignore interrupts, so the connections are closed directly.
+        for (Socket socket : openSockets) {
+            socket.close();
+        }
+        for (UserSession session : sessions.values()) {
+            session.close();
+        }
+    }
+
+    /**
+     * Returns whether a user name is allowed. Names become file names, so only letters, digits, '_' and '-'
+     * are accepted. Names are not case-sensitive.
+     *
+     * @param name The user name.
+     * @return True if the name is valid.
+     */
+    public static boolean isValidUserName(String name) {
+        return USER_NAME.matcher(name).matches();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                openSockets.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                // The server socket was closed.
+                return;
+            } catch (IOException e) {
+                System.err.println("Kiwi: could not accept a connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the user name, then runs the connection's commands until it sends {@code bye} or disconnects.
+     */
+    private void serve(Socket socket) {
+        UserSession session = null;
+        try (socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.UTF_8), BUFFER_SIZE);
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                        StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String hello = in.readLine();
+            if (hello == null) {
+                return;
+            }
+            String name = hello.startsWith(Protocol.USER_PREFIX)
+                    ? hello.substring(Protocol.USER_PREFIX.length()).trim()
+                    : "";
+            if (!isValidUserName(name)) {
+                Protocol.writeReply(out, false, "Please start with 'user NAME', where NAME has up to 32 letters,"
+                        + " digits, '_' or '-'.");
+                return;
+            }
+            // Lower-cased so that two spellings cannot share one task file on a case-insensitive file system.
+            session = sessions.computeIfAbsent(name.toLowerCase(Locale.ROOT), UserSession::new);
+            session.connect();
+            Protocol.writeReply(out, true, session.getGreeting());
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                CommandResult result = session.execute(socket, line);
+                Protocol.writeReply(out, result.isSuccess(), result.getText());
+                if (result.isExit()) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The client went away. Its changes have been journaled, except those in a batch it left open.
+        } finally {
+            openSockets.remove(socket);
+            if (session != null) {
+                session.disconnect(socket);
+            }
+        }
+    }
+
+    /**
+     * Returns how many users have their task list open, that is, have at least one connection.
+     */
+    int getOpenUserCount() {
+        int count = 0;
+        for (UserSession session : sessions.values()) {
+            if (session.isOpen()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * One user's Kiwi, opened on first use, shared by all of that user's connections and closed when the last
+     * of them ends.
+     */
+    private class UserSession {
+        private final String name;
+        // A lock rather than synchronized, so that a virtual thread waiting for it does not pin its carrier.
+        private final ReentrantLock lock = new ReentrantLock();
+        private Kiwi kiwi;
+        private Socket batchOwner;
+        private int connectionCount;
+
+        UserSession(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Counts a new connection of the user, which keeps the user's Kiwi open until it disconnects.
+         */
+        void connect() {
+            lock.lock();
+            try {
+                connectionCount++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isOpen() {
+            lock.lock();
+            try {
+                return kiwi != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        String getGreeting() {
+            lock.lock();
+            try {
+                return getKiwi().getGreeting();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Runs one command and renders its reply before another connection of the same user can change the list.
+         * While one connection has a batch open, the others' commands are refused rather than mixed into it.
+         */
+        CommandResult execute(Socket connection, String input) {
+            lock.lock();
+            try {
+                if (batchOwner != null && batchOwner != connection) {
+                    return CommandResult.error("Error: Another connection of yours has a batch open. Please try"
+                            + " again once it is committed or rolled back.");
+                }
+                Kiwi userKiwi = getKiwi();
+                CommandResult result = userKiwi.execute(input);
+                result.getText();
+                batchOwner = userKiwi.isInBatch() ? connection : null;
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Rolls back the batch the connection left open, if any, so that the user's other connections can go on
+         * and their changes are journaled again. Closes the user's Kiwi once no connection is left.
+         */
+        void disconnect(Socket connection) {
+            lock.lock();
+            try {
+                if (batchOwner == connection && kiwi != null) {
+                    kiwi.execute("rollback");
+                    batchOwner = null;
+                }
+                connectionCount--;
+                if (connectionCount == 0) {
+                    close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Closes the user's Kiwi, waiting for a command that is still running. The next command opens it again.
+         */
+        void close() {
+            lock.lock();
+            try {
+                if (kiwi != null) {
+                    kiwi.close();
+                    kiwi = null;
+                    batchOwner = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Kiwi getKiwi() {
+            if (kiwi == null) {
+                kiwi = new Kiwi(dataDirectory.resolve(name + ".txt").toString());
+            }
+            return kiwi;
+        }
+    }
+}
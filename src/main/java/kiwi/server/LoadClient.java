@@ -0,0 +1,192 @@
+package kiwi.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import kiwi.command.CommandRegistry;
+import kiwi.command.CommandType;
+import kiwi.loadtest.Workload;
+import kiwi.metrics.LatencyHistogram;
+
+/**
+ * Simulates many users talking to a local {@link KiwiServer} at once and reports the latency each command saw
+ * from the client side, including the round trip over the socket.
+ * <p>
+ * Every simulated user connects once, sends a generated {@link Workload} one command at a time and waits for
+ * each reply before sending the next. User names start with a prefix that is unique to the run, so every
+ * user starts from an empty task list; their task files are left in the server's data directory.
+ * <p>
+ * Usage: {@code java -cp kiwi.jar kiwi.server.LoadClient [--port N] [--users N] [--commands N] [--mix SPEC]
+ * [--seed N]}
+ */
+public class LoadClient {
+    private static final String USAGE = "Usage: kiwi.server.LoadClient [--port N] [--users N] [--commands N]"
+            + " [--mix SPEC] [--seed N]";
+    private static final int DEFAULT_PORT = 5678;
+
+    private int port = DEFAULT_PORT;
+    private int userCount = 50;
+    private int commandCount = 1000;
+    private Map<Workload.Kind, Integer> weights = Workload.defaultWeights();
+    private long seed = 42;
+
+    private final Map<CommandType, LatencyHistogram> latencies = new EnumMap<>(CommandType.class);
+    private final LatencyHistogram allLatencies = new LatencyHistogram();
+    private final LongAdder errorCount = new LongAdder();
+
+    private LoadClient() {
+        for (CommandType type : CommandType.values()) {
+            latencies.put(type, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Parses the options, runs every simulated user to completion and prints the latencies.
+     *
+     * @param args The command-line options, see the class description.
+     */
+    public static void main(String[] args) {
+        LoadClient client = new LoadClient();
+        try {
+            client.parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        try {
+            long elapsedNanos = client.run();
+            System.out.print(client.formatSummary(elapsedNanos));
+        } catch (ExecutionException e) {
+            System.err.println("A simulated user failed: " + e.getCause().getMessage());
+            System.exit(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(2);
+        }
+    }
+
+    private void parseOptions(String[] args) {
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Every option needs a value");
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+            case "--port":
+                port = Integer.parseInt(value);
+                break;
+            case "--users":
+                userCount = Integer.parseInt(value);
+                break;
+            case "--commands":
+                commandCount = Integer.parseInt(value);
+                break;
+            case "--mix":
+                weights = Workload.parseWeights(value);
+                break;
+            case "--seed":
+                seed = Long.parseLong(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    /**
+     * Runs all simulated users at once.
+     *
+     * @return How long it took until the last user finished, in nanoseconds.
+     */
+    private long run() throws InterruptedException, ExecutionException {
+        String prefix = "load" + Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+        ExecutorService users = Threads.newThreadPerTaskExecutor("kiwi-load-user");
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            String name = prefix + "-" + i;
+            Workload workload = new Workload(weights, 0, seed + i);
+            futures.add(users.submit(() -> {
+                runUser(name, workload);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        users.shutdown();
+        return System.nanoTime() - start;
+    }
+
+    private void runUser(String name, Workload workload) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                        StandardCharsets.UTF_8))) {
+            send(out, Protocol.USER_PREFIX + name);
+            if (!Protocol.readReply(in).isSuccess()) {
+                throw new IOException("The server rejected user " + name);
+            }
+            for (int i = 0; i < commandCount; i++) {
+                String command = workload.next();
+                long start = System.nanoTime();
+                send(out, command);
+                Protocol.Reply reply = Protocol.readReply(in);
+                long latency = System.nanoTime() - start;
+
+                latencies.get(CommandRegistry.lookup(command)).record(latency);
+                allLatencies.record(latency);
+                if (!reply.isSuccess()) {
+                    errorCount.increment();
+                }
+            }
+            send(out, "bye");
+            Protocol.readReply(in);
+        }
+    }
+
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    private String formatSummary(long elapsedNanos) {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "%d users, %,d commands in %.2f s (%.0f/s), %,d errors%n", userCount, allLatencies.getCount(),
+                elapsedNanos / 1e9, allLatencies.getCount() * 1e9 / elapsedNanos, errorCount.sum()));
+        summary.append(String.format(Locale.ROOT, "%-10s %10s %10s %10s %10s %10s%n",
+                "command", "count", "p50 us", "p99 us", "p99.9 us", "max us"));
+        latencies.forEach((type, histogram) -> {
+            if (histogram.getCount() > 0) {
+                summary.append(formatRow(type.getKeyword(), histogram));
+            }
+        });
+        summary.append(formatRow("all", allLatencies));
+        return summary.toString();
+    }
+
+    private static String formatRow(String name, LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "%-10s %10d %10.1f %10.1f %10.1f %10.1f%n", name, histogram.getCount(),
+                histogram.getPercentile(0.5) / 1e3, histogram.getPercentile(0.99) / 1e3,
+                histogram.getPercentile(0.999) / 1e3, histogram.getMax() / 1e3);
+    }
+}
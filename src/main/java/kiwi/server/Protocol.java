@@ -0,0 +1,102 @@
+package kiwi.server;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The line-based protocol between {@link KiwiServer} and its clients.
+ * <p>
+ * A client first sends {@code user NAME} and then one command per line. The server answers every line with a
+ * status line, {@code OK n} or {@code ERR n}, followed by the {@code n} lines of the reply. Once a reply has
+ * exit set (after {@code bye}) the server closes the connection.
+ */
+final class Protocol {
+    static final String USER_PREFIX = "user ";
+    private static final String OK = "OK";
+    private static final String ERROR = "ERR";
+
+    private Protocol() {
+    }
+
+    /**
+     * Writes one reply and flushes it.
+     *
+     * @param out Where to write the reply.
+     * @param isSuccess Whether the command succeeded.
+     * @param text The reply text; may span several lines.
+     * @throws IOException If the connection fails.
+     */
+    static void writeReply(Writer out, boolean isSuccess, String text) throws IOException {
+        int lineCount = 1;
+        for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+            lineCount++;
+        }
+        out.write(isSuccess ? OK : ERROR);
+        out.write(' ');
+        out.write(Integer.toString(lineCount));
+        out.write('\n');
+        out.write(text);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Reads one reply.
+     *
+     * @param in Where to read the reply from.
+     * @return The reply.
+     * @throws IOException If the connection fails or the server closed it before a full reply arrived.
+     */
+    static Reply readReply(BufferedReader in) throws IOException {
+        String status = in.readLine();
+        if (status == null) {
+            throw new EOFException("The server closed the connection");
+        }
+        int space = status.indexOf(' ');
+        if (space < 0) {
+            throw new IOException("Malformed status line: " + status);
+        }
+        boolean isSuccess = status.substring(0, space).equals(OK);
+        int lineCount;
+        try {
+            lineCount = Integer.parseInt(status.substring(space + 1));
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed status line: " + status);
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lineCount; i++) {
+            String line = in.readLine();
+            if (line == null) {
+                throw new EOFException("The server closed the connection in the middle of a reply");
+            }
+            if (i > 0) {
+                text.append('\n');
+            }
+            text.append(line);
+        }
+        return new Reply(isSuccess, text.toString());
+    }
+
+    /**
+     * One reply read from the server.
+     */
+    static final class Reply {
+        private final boolean isSuccess;
+        private final String text;
+
+        Reply(boolean isSuccess, String text) {
+            this.isSuccess = isSuccess;
+            this.text = text;
+        }
+
+        boolean isSuccess() {
+            return isSuccess;
+        }
+
+        String getText() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package kiwi.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors that run one task per connection or per simulated user.
+ */
+final class Threads {
+    private Threads() {
+    }
+
+    /**
+     * Returns an executor that starts a new thread for every task. On Java 21 and later these are virtual threads,
+     * so thousands of mostly idle connections cost little; on older JVMs, which Kiwi still builds for, it falls back
+     * to a cached pool of daemon platform threads.
+     *
+     * @param name The prefix for the names of the platform threads.
+     * @return The executor.
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package kiwi.storage;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import kiwi.exception.KiwiException;
+import kiwi.task.Deadline;
+import kiwi.task.Event;
+import kiwi.task.Task;
+import kiwi.task.Todo;
+
+/**
+ * Reads and writes the compact binary snapshot format.
+ * <p>
+ * Layout (version 2): the magic bytes {@code KIWB}, a version byte, then the journal sequence number, the id
+ * the next new task gets and the task count as varints, followed by one record per task:
+ * <ul>
+ *   <li>a type byte ({@code T}, {@code D} or {@code E}) and a flags byte (bit 0 = done),</li>
+ *   <li>the task id as a varint, 0 if the task has none,</li>
+ *   <li>the description as a varint byte length followed by UTF-8 bytes,</li>
+ *   <li>for deadlines, the due date and time as a zig-zag varint of minutes since the epoch (UTC),</li>
+ *   <li>for events, the from and to values as dictionary references: {@code 0} followed by a new string
+ *       that is appended to the dictionary, or the 1-based index of a string seen earlier in the file.</li>
+ * </ul>
+ * Loading therefore never parses dates or formats text, and repeated event times are stored once.
+ * Version 1 files, written before tasks had ids, are the same without the next id and the task ids, and can
+ * still be read.
+ */
+final class BinaryTaskCodec {
+    private static final byte[] MAGIC = {'K', 'I', 'W', 'B'};
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_IDS = 1;
+    private static final int FLAG_DONE = 1;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private BinaryTaskCodec() {
+    }
+
+    /**
+     * Returns whether the file starts with the binary format's magic bytes.
+     *
+     * @param path The snapshot file.
+     * @return True if the file exists and is in the binary format.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isBinary(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+            long position = 0;
+            while (head.hasRemaining()) {
+                int read = channel.read(head, position);
+                if (read <= 0) {
+                    return false;
+                }
+                position += read;
+            }
+            return ByteBuffer.wrap(MAGIC).equals(head.flip());
+        }
+    }
+
+    /**
+     * Reads a binary snapshot file.
+     *
+     * @param path The snapshot file.
+     * @return The tasks, the journal sequence number and the next id stored in the file.
+     * @throws IOException If the file cannot be read.
+     * @throws KiwiException If the file is truncated, has an unknown version or holds invalid data.
+     */
+    static Snapshot read(Path path) throws IOException, KiwiException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Decoder(in).decode();
+        } catch (BufferUnderflowException | DateTimeException | IndexOutOfBoundsException e) {
+            throw new KiwiException("Corrupted task file");
+        }
+    }
+
+    /**
+     * Writes a binary snapshot file, forcing it to the device before returning.
+     *
+     * @param path The file to (over)write.
+     * @param tasks The tasks to write, in order.
+     * @param seq The last journal sequence number contained in the tasks.
+     * @param nextId The id the next new task gets.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(Path path, List<Task> tasks, long seq, long nextId) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelWriter out = new ChannelWriter(channel, WRITE_BUFFER_SIZE);
+            out.put(MAGIC);
+            out.putByte(VERSION);
+            out.putVarLong(seq);
+            out.putVarLong(nextId);
+            out.putVarLong(tasks.size());
+            Map<String, Integer> dictionary = new HashMap<>();
+            for (Task task : tasks) {
+                putTask(out, task, dictionary);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private static void putTask(ChannelWriter out, Task task, Map<String, Integer> dictionary) throws IOException {
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            putHead(out, 'D', task);
+            long epochMinute = LocalDateTime.of(deadline.getDate(), deadline.getTime())
+                    .toEpochSecond(ZoneOffset.UTC) / 60;
+            out.putVarLong((epochMinute << 1) ^ (epochMinute >> 63));
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            putHead(out, 'E', task);
+            putDictionaryString(out, event.getFrom(), dictionary);
+            putDictionaryString(out, event.getTo(), dictionary);
+        } else {
+            putHead(out, 'T', task);
+        }
+    }
+
+    private static void putHead(ChannelWriter out, char type, Task task) throws IOException {
+        out.putByte(type);
+        out.putByte(task.isDone() ? FLAG_DONE : 0);
+        out.putVarLong(task.getId());
+        putString(out, task.getDescription());
+    }
+
+    private static void putString(ChannelWriter out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putVarLong(bytes.length);
+        out.put(bytes);
+    }
+
+    private static void putDictionaryString(ChannelWriter out, String value, Map<String, Integer> dictionary)
+            throws IOException {
+        Integer reference = dictionary.get(value);
+        if (reference != null) {
+            out.putVarLong(reference);
+            return;
+        }
+        dictionary.put(value, dictionary.size() + 1);
+        out.putVarLong(0);
+        putString(out, value);
+    }
+
+    /**
+     * Decodes a mapped binary snapshot, reusing one scratch array for all string bytes.
+     */
+    private static final class Decoder {
+        private final ByteBuffer in;
+        private final List<String> dictionary = new ArrayList<>();
+        private byte[] scratch = new byte[256];
+        private boolean hasIds;
+
+        Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        Snapshot decode() throws KiwiException {
+            for (byte expected : MAGIC) {
+                if (in.get() != expected) {
+                    throw new KiwiException("Corrupted task file");
+                }
+            }
+            byte version = in.get();
+            if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+                throw new KiwiException("Unsupported task file version");
+            }
+            hasIds = version == VERSION;
+            long seq = getVarLong();
+            long nextId = hasIds ? getVarLong() : 0;
+            int count = (int) getVarLong();
+            // Every task takes at least four bytes, which bounds the capacity of a corrupted count.
+            ArrayList<Task> tasks = new ArrayList<>(Math.min(count, in.remaining() / 4));
+            for (int i = 0; i < count; i++) {
+                tasks.add(getTask());
+            }
+            return new Snapshot(tasks, seq, nextId);
+        }
+
+        private Task getTask() throws KiwiException {
+            byte type = in.get();
+            boolean isDone = (in.get() & FLAG_DONE) != 0;
+            long id = hasIds ? getVarLong() : 0;
+            String description = getString();
+            Task task;
+            switch (type) {
+            case 'T':
+                task = new Todo(description);
+                break;
+            case 'D':
+                long zigzag = getVarLong();
+                long epochMinute = (zigzag >>> 1) ^ -(zigzag & 1);
+                LocalDateTime due = LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+                task = new Deadline(description, due.toLocalDate(), due.toLocalTime());
+                break;
+            case 'E':
+                task = new Event(description, getDictionaryString(), getDictionaryString());
+                break;
+            default:
+                throw new KiwiException("Corrupted task file");
+            }
+            if (isDone) {
+                task.markAsDone();
+            }
+            task.setId(id);
+            return task;
+        }
+
+        private long getVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private String getString() {
+            int length = (int) getVarLong();
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private String getDictionaryString() {
+            int reference = (int) getVarLong();
+            if (reference == 0) {
+                String value = getString();
+                dictionary.add(value);
+                return value;
+            }
+            return dictionary.get(reference - 1);
+        }
+    }
+}
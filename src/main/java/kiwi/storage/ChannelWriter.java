@@ -0,0 +1,86 @@
+package kiwi.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffers bytes in a direct {@link ByteBuffer} and writes the buffer to a channel whenever it fills up.
+ * Shared by the snapshot codecs so that encoding never goes through intermediate streams or strings.
+ */
+final class ChannelWriter {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    ChannelWriter(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void putByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    void put(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.capacity()) {
+            drain();
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+            return;
+        }
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes a string whose characters are all below 0x80, one byte per character.
+     */
+    void putAscii(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    /**
+     * Writes a non-negative number as an unsigned LEB128 varint: seven bits per byte, low bits first.
+     */
+    void putVarLong(long value) throws IOException {
+        ensure(10);
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes out everything buffered so far.
+     *
+     * @throws IOException If the channel cannot be written.
+     */
+    void flush() throws IOException {
+        drain();
+    }
+}
@@ -0,0 +1,70 @@
+package kiwi.storage;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs snapshot compaction on a single background thread.
+ * At most one compaction is in flight at a time; callers that need the files to be quiet
+ * (for example before writing a full snapshot) wait for it with {@link #awaitIdle()}.
+ */
+class Compactor {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kiwi-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Future<?> pending;
+
+    /**
+     * Returns whether a compaction has been submitted and has not finished yet.
+     */
+    synchronized boolean isBusy() {
+        return pending != null && !pending.isDone();
+    }
+
+    /**
+     * Starts the given compaction job in the background unless one is already running.
+     *
+     * @param job The compaction to run.
+     * @return True if the job was submitted.
+     */
+    synchronized boolean submit(Runnable job) {
+        if (isBusy()) {
+            return false;
+        }
+        pending = executor.submit(job);
+        return true;
+    }
+
+    /**
+     * Blocks until the current compaction, if any, has finished.
+     */
+    void awaitIdle() {
+        Future<?> current;
+        synchronized (this) {
+            current = pending;
+        }
+        if (current == null) {
+            return;
+        }
+        try {
+            current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The job reports its own failures; a failed compaction leaves the sealed segment for the next load.
+        }
+    }
+
+    /**
+     * Waits for the current compaction and stops the background thread. No jobs may be submitted afterwards.
+     */
+    void close() {
+        awaitIdle();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,13 @@
+package kiwi.storage;
+
+/**
+ * Describes how far a group of journal records must travel before a write is considered done.
+ */
+public enum Durability {
+    /** Records stay in the process and are written out in large chunks or when storage is flushed. */
+    NONE,
+    /** Records are handed to the operating system after every group write. */
+    FLUSH,
+    /** Records are handed to the operating system and forced to the storage device after every group write. */
+    FSYNC
+}
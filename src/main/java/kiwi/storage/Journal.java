@@ -0,0 +1,278 @@
+package kiwi.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the append-only mutation log kept next to a task snapshot.
+ * Every record is a single line of the form {@code <seq> | <body>}, where {@code seq} increases
+ * by one per record. Snapshots remember the last sequence number they contain, so replaying
+ * only needs the records written after it.
+ * <p>
+ * The active log can be sealed into a separate segment so that it can be folded into a new
+ * snapshot in the background while further records go to a fresh active log.
+ * <p>
+ * A Journal is not thread-safe; {@link Storage} only touches it while holding its I/O lock.
+ */
+class Journal {
+    private static final String SEPARATOR = " | ";
+    private static final int MAX_PENDING_CHARS = 1 << 16;
+
+    private final Path activePath;
+    private final Path sealedPath;
+
+    private long lastSeq;
+    private long recordCount;
+    private long byteCount;
+
+    private final StringBuilder pending = new StringBuilder();
+    private FileChannel channel;
+
+    /**
+     * Creates a journal whose active log lives at the given path.
+     *
+     * @param activePath Path of the active log; the sealed segment uses the same path with a {@code .sealed} suffix.
+     */
+    Journal(Path activePath) {
+        this.activePath = activePath;
+        this.sealedPath = activePath.resolveSibling(activePath.getFileName() + ".sealed");
+    }
+
+    Path getSealedPath() {
+        return sealedPath;
+    }
+
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Moves the sequence counter forward so that new records follow everything already persisted.
+     *
+     * @param seq The highest sequence number seen in the snapshot or in replayed records.
+     */
+    void advanceTo(long seq) {
+        lastSeq = Math.max(lastSeq, seq);
+    }
+
+    /**
+     * Appends a group of records to the active log as a single write.
+     * With {@link Durability#NONE} the records stay in an in-process buffer until {@link #sync(Durability)}
+     * is called or the buffer grows large; otherwise they are handed to the OS, and with
+     * {@link Durability#FSYNC} also forced to the device.
+     *
+     * @param bodies The record bodies, without sequence numbers or line terminators.
+     * @param durability How far the records must travel before this method returns.
+     * @throws IOException If the log cannot be written.
+     */
+    void appendAll(List<String> bodies, Durability durability) throws IOException {
+        for (String body : bodies) {
+            lastSeq++;
+            int lengthBefore = pending.length();
+            pending.append(lastSeq).append(SEPARATOR).append(body).append('\n');
+            recordCount++;
+            byteCount += pending.length() - lengthBefore;
+        }
+        if (durability != Durability.NONE || pending.length() >= MAX_PENDING_CHARS) {
+            sync(durability);
+        }
+    }
+
+    /**
+     * Writes any buffered records to the active log.
+     *
+     * @param durability Whether the written records must also be forced to the device.
+     * @throws IOException If the log cannot be written.
+     */
+    void sync(Durability durability) throws IOException {
+        if (pending.length() > 0) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(pending));
+            pending.setLength(0);
+            FileChannel out = openChannel();
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+        }
+        if (durability == Durability.FSYNC && channel != null) {
+            channel.force(false);
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            Path parent = activePath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * Writes out buffered records and closes the active log file.
+     *
+     * @throws IOException If the log cannot be written or closed.
+     */
+    void close() throws IOException {
+        sync(Durability.FLUSH);
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Seals the active log so that it can be compacted, and starts a new, empty active log.
+     *
+     * @return True if there was anything to seal.
+     * @throws IOException If the active log cannot be renamed.
+     */
+    boolean seal() throws IOException {
+        close();
+        if (!Files.exists(activePath)) {
+            return false;
+        }
+        Files.move(activePath, sealedPath, StandardCopyOption.ATOMIC_MOVE);
+        recordCount = 0;
+        byteCount = 0;
+        return true;
+    }
+
+    /**
+     * Deletes both the sealed segment and the active log, dropping any buffered records.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    void clear() throws IOException {
+        pending.setLength(0);
+        close();
+        Files.deleteIfExists(sealedPath);
+        Files.deleteIfExists(activePath);
+        recordCount = 0;
+        byteCount = 0;
+    }
+
+    /**
+     * Reads the bodies of all records after {@code afterSeq}, first from the sealed segment and then
+     * from the active log. Updates the sequence counter and the active log statistics.
+     *
+     * @param afterSeq The last sequence number already contained in the snapshot.
+     * @return The record bodies in the order they must be applied.
+     * @throws IOException If a log cannot be read.
+     */
+    List<String> readAfter(long afterSeq) throws IOException {
+        List<String> bodies = new ArrayList<>();
+        close();
+        truncateTornTail();
+        advanceTo(readSegment(sealedPath, afterSeq, bodies));
+        int sealedCount = bodies.size();
+        advanceTo(readSegment(activePath, afterSeq, bodies));
+        recordCount = bodies.size() - sealedCount;
+        byteCount = Files.exists(activePath) ? Files.size(activePath) : 0;
+        return bodies;
+    }
+
+    /**
+     * Reads the bodies of all records after {@code afterSeq} from the sealed segment only.
+     * Does not touch the journal's own counters, so it is safe to call from the compaction thread.
+     *
+     * @param afterSeq The last sequence number already contained in the snapshot.
+     * @param bodies The list that receives the record bodies, in order.
+     * @return The sequence number of the last record in the segment, or {@code afterSeq} if there is none.
+     * @throws IOException If the segment cannot be read.
+     */
+    long readSealedAfter(long afterSeq, List<String> bodies) throws IOException {
+        return readSegment(sealedPath, afterSeq, bodies);
+    }
+
+    private static long readSegment(Path path, long afterSeq, List<String> bodies) throws IOException {
+        long[] last = {afterSeq};
+        forEachRecord(path, (seq, body) -> {
+            last[0] = Math.max(last[0], seq);
+            if (seq > afterSeq) {
+                bodies.add(body);
+            }
+        });
+        return last[0];
+    }
+
+    /**
+     * Visits every complete record in a segment. A final line without a terminator is the
+     * remains of a write that was interrupted by a crash, and is ignored.
+     */
+    private static void forEachRecord(Path path, RecordVisitor visitor) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        String content = new String(bytes, 0, completeLength(bytes), StandardCharsets.UTF_8);
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            String line = content.substring(start, end);
+            start = end + 1;
+            int seqEnd = line.indexOf(SEPARATOR);
+            if (seqEnd < 0) {
+                throw new IOException("Invalid journal record");
+            }
+            try {
+                long seq = Long.parseLong(line.substring(0, seqEnd));
+                visitor.visit(seq, line.substring(seqEnd + SEPARATOR.length()));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid journal record");
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the prefix of {@code bytes} that ends with a complete record.
+     */
+    private static int completeLength(byte[] bytes) {
+        int length = bytes.length;
+        while (length > 0 && bytes[length - 1] != '\n') {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Cuts a torn final record off the active log, so that new records do not get glued onto it.
+     */
+    private void truncateTornTail() throws IOException {
+        if (!Files.exists(activePath)) {
+            return;
+        }
+        int complete = completeLength(Files.readAllBytes(activePath));
+        try (FileChannel channel = FileChannel.open(activePath, StandardOpenOption.WRITE)) {
+            if (channel.size() > complete) {
+                channel.truncate(complete);
+            }
+        }
+    }
+
+    /**
+     * Receives one journal record at a time.
+     */
+    private interface RecordVisitor {
+        void visit(long seq, String body);
+    }
+}
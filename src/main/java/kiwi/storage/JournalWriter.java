@@ -0,0 +1,171 @@
+package kiwi.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves journal writes off the calling thread. Records are queued by {@link #submit(String)} and a
+ * dedicated writer thread commits them in groups: after the first record of a burst arrives, it keeps
+ * collecting records for up to the configured delay and then hands the whole group over in one call.
+ * <p>
+ * Failures on the writer thread are remembered and reported on the next call to
+ * {@link #submit(String)} or {@link #drain()}.
+ */
+class JournalWriter {
+    private static final int MAX_GROUP_SIZE = 4096;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final GroupSink sink;
+
+    private volatile long maxDelayNanos;
+    private volatile IOException failure;
+    private Thread thread;
+
+    /**
+     * Creates a writer that commits groups of records to the given sink.
+     *
+     * @param sink Receives every group of records on the writer thread.
+     * @param maxDelayMillis How long to wait for more records after the first one of a group arrives.
+     */
+    JournalWriter(GroupSink sink, long maxDelayMillis) {
+        this.sink = sink;
+        setMaxDelay(maxDelayMillis);
+    }
+
+    void setMaxDelay(long maxDelayMillis) {
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    }
+
+    /**
+     * Queues a record for writing and returns immediately.
+     *
+     * @param record The record body.
+     * @throws IOException If an earlier group could not be written.
+     */
+    synchronized void submit(String record) throws IOException {
+        rethrowFailure();
+        if (thread == null) {
+            thread = new Thread(this::run, "kiwi-journal-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        queue.add(record);
+    }
+
+    /**
+     * Blocks until every record submitted so far has been written out.
+     *
+     * @throws IOException If any queued record could not be written.
+     */
+    void drain() throws IOException {
+        synchronized (this) {
+            if (thread == null) {
+                rethrowFailure();
+                return;
+            }
+        }
+        CountDownLatch marker = new CountDownLatch(1);
+        queue.add(marker);
+        try {
+            marker.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal writer");
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * Writes out every record submitted so far and stops the writer thread.
+     *
+     * @throws IOException If any queued record could not be written.
+     */
+    void close() throws IOException {
+        drain();
+        synchronized (this) {
+            if (thread != null) {
+                // The thread is idle once drained, so the interrupt only wakes it from waiting for records.
+                thread.interrupt();
+                thread = null;
+            }
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        IOException current = failure;
+        if (current != null) {
+            failure = null;
+            throw current;
+        }
+    }
+
+    private void run() {
+        List<String> group = new ArrayList<>();
+        List<CountDownLatch> markers = new ArrayList<>();
+        while (true) {
+            try {
+                collectGroup(group, markers);
+                commit(group, !markers.isEmpty());
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                group.clear();
+                markers.forEach(CountDownLatch::countDown);
+                markers.clear();
+            }
+        }
+    }
+
+    /**
+     * Blocks for the first entry, then gathers everything that arrives within the delay window.
+     * A drain marker closes the group early, since someone is waiting for it.
+     */
+    private void collectGroup(List<String> group, List<CountDownLatch> markers) throws InterruptedException {
+        Object entry = queue.take();
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (true) {
+            if (entry instanceof CountDownLatch) {
+                markers.add((CountDownLatch) entry);
+                return;
+            }
+            group.add((String) entry);
+            if (group.size() >= MAX_GROUP_SIZE) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            entry = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (entry == null) {
+                return;
+            }
+        }
+    }
+
+    private void commit(List<String> group, boolean isDrain) {
+        try {
+            sink.commit(group, isDrain);
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        }
+    }
+
+    /**
+     * Receives groups of records on the writer thread.
+     */
+    interface GroupSink {
+        /**
+         * Writes a group of records.
+         *
+         * @param records The records, in submission order; may be empty for a pure drain.
+         * @param isDrain Whether a caller is waiting for everything to reach the OS.
+         * @throws IOException If the records cannot be written.
+         */
+        void commit(List<String> records, boolean isDrain) throws IOException;
+    }
+}
@@ -0,0 +1,36 @@
+package kiwi.storage;
+
+import java.util.ArrayList;
+
+import kiwi.task.Task;
+
+/**
+ * Holds the tasks read from a snapshot file together with the last journal sequence number it contains
+ * and the id the next new task should get.
+ */
+class Snapshot {
+    private final ArrayList<Task> tasks;
+    private final long seq;
+    private final long nextId;
+
+    Snapshot(ArrayList<Task> tasks, long seq, long nextId) {
+        this.tasks = tasks;
+        this.seq = seq;
+        this.nextId = nextId;
+    }
+
+    ArrayList<Task> getTasks() {
+        return tasks;
+    }
+
+    long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Returns the id after the highest one the task file has held, or 0 if the file predates stored next ids.
+     */
+    long getNextId() {
+        return nextId;
+    }
+}
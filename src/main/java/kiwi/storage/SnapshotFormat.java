@@ -0,0 +1,12 @@
+package kiwi.storage;
+
+/**
+ * Lists the file formats a task snapshot can be written in.
+ * Loading detects the format of an existing file on its own, whichever format is configured.
+ */
+public enum SnapshotFormat {
+    /** Human-readable pipe-delimited lines, e.g. {@code T | 0 | read book}. */
+    TEXT,
+    /** Compact binary records that load without any text or date parsing. */
+    BINARY
+}
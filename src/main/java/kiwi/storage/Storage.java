@@ -1,35 +1,72 @@
 package kiwi.storage;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
 
 import kiwi.exception.KiwiException;
-import kiwi.task.Deadline;
-import kiwi.task.Event;
+import kiwi.metrics.Metrics;
+import kiwi.metrics.StorageEvent;
 import kiwi.task.Task;
-import kiwi.task.Todo;
 
 /**
  * Handles persistent storage of tasks by reading from and writing to a file.
  * Supports loading tasks from a predefined file format and saving tasks in a format
  * suitable for later reconstruction.
+ * <p>
+ * Besides full snapshots, Storage keeps an append-only journal next to the task file
+ * ({@code <file>.journal}). Each mutating command appends one small record to the journal,
+ * so the cost of a write depends on the size of the change rather than the size of the list.
+ * On load, the journal is replayed on top of the last snapshot.
+ * <p>
+ * Once the journal grows past a record-count or size threshold, it is sealed and folded into a
+ * fresh snapshot on a background thread. Snapshots are written to a temporary file and atomically
+ * renamed over the old one, so a crash never leaves a half-written task file behind.
+ * <p>
+ * Snapshots are written either in the pipe-delimited text format ({@link TextTaskCodec}) or in a compact
+ * binary format ({@link BinaryTaskCodec}). The format of an existing file is detected when loading, and a
+ * file in the other format is migrated to the configured one right after it has been loaded.
+ * <p>
+ * Snapshots also remember the id the next new task gets, and replaying a journal record that writes a task moves
+ * it past that task's id, so ids of deleted tasks are not handed out again after a restart.
+ * <p>
+ * Journal records are written behind the caller's back: the append methods only queue a record,
+ * and a dedicated writer thread commits bursts of records as one group write. {@link #flush()},
+ * {@link #save(List)} and {@link #close()} wait for the queue to drain.
  */
 public class Storage {
-    private static final String TASK_TYPE_TODO = "T";
-    private static final String TASK_TYPE_DEADLINE = "D";
-    private static final String TASK_TYPE_EVENT = "E";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String RECORD_SEPARATOR = " | ";
+    private static final String RECORD_ADD = "A";
+    private static final String RECORD_INSERT = "I";
+    private static final String RECORD_MARK = "M";
+    private static final String RECORD_UNMARK = "U";
+    private static final String RECORD_DELETE = "X";
+    private static final String RECORD_REPLACE = "R";
 
-    private static final String TASK_COMPLETED = "1";
+    private static final long DEFAULT_COMPACTION_RECORDS = 1000;
+    private static final long DEFAULT_COMPACTION_BYTES = 1 << 20;
+    private static final long DEFAULT_MAX_WRITE_DELAY_MILLIS = 5;
 
-    private static final int MIN_TODO_PARTS = 3;
-    private static final int MIN_DEADLINE_PARTS = 4;
-    private static final int MIN_EVENT_PARTS = 5;
+    private final Path snapshotPath;
+    private final Path tempPath;
+    private final Journal journal;
+    private final Compactor compactor = new Compactor();
+    private final JournalWriter writer = new JournalWriter(this::commitGroup, DEFAULT_MAX_WRITE_DELAY_MILLIS);
+    private final Object ioLock = new Object();
 
-    private final String filePath;
+    private volatile long compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private volatile long compactionBytes = DEFAULT_COMPACTION_BYTES;
+    private volatile Durability durability = Durability.FLUSH;
+    private volatile SnapshotFormat snapshotFormat = SnapshotFormat.TEXT;
+    private volatile Metrics metrics = new Metrics();
+    private volatile long nextId;
 
     /**
      * Creates a Storage instance associated with the specified file path.
@@ -37,133 +74,383 @@ public class Storage {
      * @param filePath The path to the file used for task persistence.
      */
     public Storage(String filePath) {
-        this.filePath = filePath;
+        this.snapshotPath = Paths.get(filePath);
+        this.tempPath = Paths.get(filePath + TEMP_SUFFIX);
+        this.journal = new Journal(Paths.get(filePath + JOURNAL_SUFFIX));
     }
 
     /**
-     * Loads tasks from the storage file. Creates an empty file if none exists.
+     * Sets how large the journal may grow before it is compacted into a new snapshot.
+     * Compaction starts as soon as either limit is reached.
+     *
+     * @param maxRecords Maximum number of records in the active journal.
+     * @param maxBytes Maximum size of the active journal in bytes.
+     */
+    public void setCompactionThresholds(long maxRecords, long maxBytes) {
+        this.compactionRecords = maxRecords;
+        this.compactionBytes = maxBytes;
+    }
+
+    /**
+     * Configures write-behind group commits.
+     *
+     * @param maxDelayMillis How long the writer thread waits for more records before writing a group.
+     * @param durability How far each group write must travel before the writer moves on.
+     */
+    public void setWriteBehind(long maxDelayMillis, Durability durability) {
+        writer.setMaxDelay(maxDelayMillis);
+        this.durability = durability;
+    }
+
+    /**
+     * Sets the format new snapshots are written in. Takes effect from the next snapshot,
+     * including the migration performed by {@link #load()}.
+     *
+     * @param snapshotFormat The snapshot file format.
+     */
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    /**
+     * Sets where load, snapshot and journal write timings and sizes are recorded.
+     *
+     * @param metrics The metrics to record into.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Loads tasks from the last snapshot and replays the journaled mutations written after it.
      *
      * @return An ArrayList of reconstructed Task objects.
      * @throws KiwiException If file reading fails or data formatting errors occur.
      */
     public ArrayList<Task> load() throws KiwiException {
-        ArrayList<Task> tasks = new ArrayList<>();
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent();
+        event.begin();
         try {
-            File file = new File(filePath);
-            if (!file.exists()) {
-                return tasks;
-            }
-
-            Scanner scanner = new Scanner(file);
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                Task task = parseLine(line);
-                if (task != null) {
-                    tasks.add(task);
+            writer.drain();
+            compactor.awaitIdle();
+            synchronized (ioLock) {
+                // A leftover temp file is a snapshot whose write never completed; the renamed file is the valid one.
+                Files.deleteIfExists(tempPath);
+                boolean isBinary = BinaryTaskCodec.isBinary(snapshotPath);
+                Snapshot snapshot = readSnapshot();
+                long loadedNextId = snapshot.getNextId();
+                for (String record : journal.readAfter(snapshot.getSeq())) {
+                    loadedNextId = Math.max(loadedNextId, applyRecord(record, snapshot.getTasks()) + 1);
+                }
+                nextId = loadedNextId;
+                boolean needsMigration = isBinary != (snapshotFormat == SnapshotFormat.BINARY);
+                if (Files.exists(snapshotPath) && needsMigration) {
+                    writeSnapshot(snapshot.getTasks(), journal.getLastSeq(), loadedNextId);
                 }
+                maybeCompact();
+                metrics.recordLoad(System.nanoTime() - start);
+                boolean hasSnapshot = Files.exists(snapshotPath);
+                event.finish("load", !hasSnapshot ? "NONE" : isBinary ? "BINARY" : "TEXT", snapshot.getTasks().size(),
+                        hasSnapshot ? Files.size(snapshotPath) : 0);
+                return snapshot.getTasks();
             }
-            scanner.close();
-        } catch (FileNotFoundException e) {
+        } catch (IOException | IndexOutOfBoundsException | NumberFormatException e) {
             throw new KiwiException("Error loading tasks from file");
         }
-        return tasks;
     }
 
     /**
-     * Parses a single file line into a Task object.
-     * Expected formats:
-     * <ul>
-     *   <li>Todo: T | [0/1] | [description]</li>
-     *   <li>Deadline: D | [0/1] | [description] | [dueDateTime]</li>
-     *   <li>Event: E | [0/1] | [description] | [start] | [end]</li>
-     * </ul>
+     * Returns the id the next new task should get, as found by the last {@link #load()}: one past the highest id
+     * the task file has held, counting tasks deleted since. Returns 0 if nothing has been loaded yet or the file
+     * predates stored next ids, in which case the ids of the loaded tasks are all there is to go by.
      *
-     * @param line A line from the storage file
-     * @return Reconstructed Task object, or null for invalid/empty lines
-     * @throws KiwiException For malformed lines, invalid dates, or missing fields
+     * @return The next id, or 0 if it is not known.
      */
-    private Task parseLine(String line) throws KiwiException {
-        String[] parts = line.split("\\|");
-        trimParts(parts);
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Saves all tasks to the storage file in a machine-readable format, without recording a next id.
+     *
+     * @param tasks The list of tasks to persist, which must not change while it is saved
+     * @throws KiwiException If file writing fails
+     * @see #save(List, long)
+     */
+    public void save(List<Task> tasks) throws KiwiException {
+        save(tasks, 0);
+    }
 
-        if (parts.length < MIN_TODO_PARTS) {
-            return null;
+    /**
+     * Saves all tasks to the storage file in a machine-readable format.
+     * Replaces the existing file atomically and clears the journal,
+     * since the new snapshot already contains every journaled change.
+     *
+     * @param tasks The list of tasks to persist, which must not change while it is saved
+     * @param nextId The id the next new task gets, which is kept so that it is not reused after a restart
+     * @throws KiwiException If file writing fails
+     */
+    public void save(List<Task> tasks, long nextId) throws KiwiException {
+        try {
+            writer.drain();
+            compactor.awaitIdle();
+            synchronized (ioLock) {
+                writeSnapshot(tasks, journal.getLastSeq(), nextId);
+                journal.clear();
+            }
+        } catch (IOException e) {
+            throw new KiwiException("Error saving tasks to file");
         }
+    }
 
-        String type = parts[0];
-        boolean isDone = parseIsDone(parts[1]);
-        String description = parts[2];
+    /**
+     * Blocks until every queued journal record has been written to the OS.
+     *
+     * @throws KiwiException If a queued record could not be written
+     */
+    public void flush() throws KiwiException {
+        try {
+            writer.drain();
+        } catch (IOException e) {
+            throw new KiwiException("Error saving tasks to file");
+        }
+    }
+
+    /**
+     * Drains the write-behind queue, waits for any running compaction, closes the journal and stops the
+     * background threads. Called when the application is done with the task file; the storage cannot be used
+     * afterwards.
+     *
+     * @throws KiwiException If queued records could not be written
+     */
+    public void close() throws KiwiException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new KiwiException("Error saving tasks to file");
+        } finally {
+            compactor.close();
+        }
+        synchronized (ioLock) {
+            try {
+                journal.sync(durability);
+                journal.close();
+            } catch (IOException e) {
+                throw new KiwiException("Error saving tasks to file");
+            }
+        }
+    }
 
-        Task task = switch (type) {
-        case TASK_TYPE_TODO -> parseTodo(description);
-        case TASK_TYPE_DEADLINE -> parseDeadline(parts);
-        case TASK_TYPE_EVENT -> parseEvent(parts);
-        default -> null;
-        };
+    private Snapshot readSnapshot() throws IOException, KiwiException {
+        if (BinaryTaskCodec.isBinary(snapshotPath)) {
+            return BinaryTaskCodec.read(snapshotPath);
+        }
+        return TextTaskCodec.read(snapshotPath);
+    }
 
-        if (task != null && isDone) {
-            task.markAsDone();
+    /**
+     * Writes a snapshot to the temp file, forces it to disk and renames it over the current snapshot.
+     */
+    private void writeSnapshot(List<Task> tasks, long seq, long nextId) throws IOException {
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        SnapshotFormat format = snapshotFormat;
+        Path parent = snapshotPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
         }
-        return task;
+        if (format == SnapshotFormat.BINARY) {
+            BinaryTaskCodec.write(tempPath, tasks, seq, nextId);
+        } else {
+            TextTaskCodec.write(tempPath, tasks, seq, nextId);
+        }
+        try {
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        long bytes = Files.size(snapshotPath);
+        metrics.recordSnapshot(System.nanoTime() - start, bytes);
+        event.finish("snapshot", format.name(), tasks.size(), bytes);
+    }
+
+    /**
+     * Appends a record for a newly added task to the journal.
+     *
+     * @param task The task that was appended to the end of the list
+     * @throws KiwiException If the journal cannot be written
+     */
+    public void appendAdd(Task task) throws KiwiException {
+        appendRecord(RECORD_ADD + RECORD_SEPARATOR + TextTaskCodec.formatLine(task));
+    }
+
+    /**
+     * Appends a record for a task inserted in the middle of the list, such as a deleted task brought back
+     * by undo, to the journal.
+     *
+     * @param index The 0-based index the task was inserted at
+     * @param task The inserted task
+     * @throws KiwiException If the journal cannot be written
+     */
+    public void appendInsert(int index, Task task) throws KiwiException {
+        appendRecord(RECORD_INSERT + RECORD_SEPARATOR + index + RECORD_SEPARATOR + TextTaskCodec.formatLine(task));
     }
 
-    private boolean parseIsDone(String status) {
-        return TASK_COMPLETED.equals(status);
+    /**
+     * Appends a record for a task marked as done to the journal.
+     *
+     * @param index The 0-based index of the marked task
+     * @throws KiwiException If the journal cannot be written
+     */
+    public void appendMark(int index) throws KiwiException {
+        appendRecord(RECORD_MARK + RECORD_SEPARATOR + index);
     }
 
-    private Task parseTodo(String description) throws KiwiException {
-        if (description.isEmpty()) {
-            throw new KiwiException("Invalid todo format");
+    /**
+     * Appends a record for a task marked as not done to the journal.
+     *
+     * @param index The 0-based index of the unmarked task
+     * @throws KiwiException If the journal cannot be written
+     */
+    public void appendUnmark(int index) throws KiwiException {
+        appendRecord(RECORD_UNMARK + RECORD_SEPARATOR + index);
+    }
+
+    /**
+     * Appends a record for a deleted task to the journal.
+     *
+     * @param index The 0-based index the task was removed from
+     * @throws KiwiException If the journal cannot be written
+     */
+    public void appendDelete(int index) throws KiwiException {
+        appendRecord(RECORD_DELETE + RECORD_SEPARATOR + index);
+    }
+
+    /**
+     * Appends a record for a replaced (edited) task to the journal.
+     *
+     * @param index The 0-based index of the replaced task
+     * @param task The task now stored at that index
+     * @throws KiwiException If the journal cannot be written
+     */
+    public void appendReplace(int index, Task task) throws KiwiException {
+        appendRecord(RECORD_REPLACE + RECORD_SEPARATOR + index + RECORD_SEPARATOR + TextTaskCodec.formatLine(task));
+    }
+
+    private void appendRecord(String record) throws KiwiException {
+        try {
+            writer.submit(record);
+        } catch (IOException e) {
+            throw new KiwiException("Error saving tasks to file");
         }
-        return new Todo(description);
     }
 
-    private Task parseDeadline(String[] parts) throws KiwiException {
-        if (parts.length < MIN_DEADLINE_PARTS) {
-            throw new KiwiException("Invalid deadline format");
+    /**
+     * Writes one group of records to the journal. Runs on the journal writer thread.
+     */
+    private void commitGroup(List<String> records, boolean isDrain) throws IOException {
+        synchronized (ioLock) {
+            long start = System.nanoTime();
+            long bytesBefore = journal.getByteCount();
+            journal.appendAll(records, durability);
+            metrics.recordJournalWrite(System.nanoTime() - start, records.size(),
+                    journal.getByteCount() - bytesBefore);
+            if (isDrain) {
+                journal.sync(durability == Durability.NONE ? Durability.FLUSH : durability);
+            }
+            maybeCompact();
         }
-        String description = parts[2];
-        String by = parts[3];
-        return new Deadline(description, by);
     }
 
-    private Task parseEvent(String[] parts) throws KiwiException {
-        if (parts.length < MIN_EVENT_PARTS) {
-            throw new KiwiException("Invalid event format");
+    /**
+     * Starts a background compaction if the journal has grown past its thresholds, or if a sealed
+     * segment is still waiting from a compaction that was interrupted.
+     */
+    private void maybeCompact() throws IOException {
+        if (compactor.isBusy()) {
+            return;
+        }
+        boolean hasSealedSegment = Files.exists(journal.getSealedPath());
+        boolean isOverThreshold = journal.getRecordCount() >= compactionRecords
+                || journal.getByteCount() >= compactionBytes;
+        if (hasSealedSegment || (isOverThreshold && journal.seal())) {
+            compactor.submit(this::compactSealedSegment);
         }
-        String description = parts[2];
-        String from = parts[3];
-        String to = parts[4];
-        return new Event(description, from, to);
     }
 
     /**
-     * Saves all tasks to the storage file in a machine-readable format.
-     * Overwrites existing file contents completely.
-     *
-     * @param tasks The list of tasks to persist
-     * @throws KiwiException If file writing fails
+     * Folds the sealed journal segment into a new snapshot. Runs on the compaction thread and only
+     * touches the snapshot, temp and sealed files; the active journal keeps receiving records meanwhile.
+     * If anything fails, the sealed segment is left in place and is replayed and retried on the next load.
      */
-    public void save(ArrayList<Task> tasks) throws KiwiException {
+    private void compactSealedSegment() {
         try {
-            File file = new File(filePath);
-            file.getParentFile().mkdirs();
-            FileWriter writer = new FileWriter(file);
-            for (Task task : tasks) {
-                writer.write(task.toFileFormat() + "\n");
+            Snapshot snapshot = readSnapshot();
+            List<String> records = new ArrayList<>();
+            long lastSeq = journal.readSealedAfter(snapshot.getSeq(), records);
+            long nextId = snapshot.getNextId();
+            for (String record : records) {
+                nextId = Math.max(nextId, applyRecord(record, snapshot.getTasks()) + 1);
             }
-            writer.close();
-        } catch (IOException e) {
-            throw new KiwiException("Error saving tasks to file");
+            writeSnapshot(snapshot.getTasks(), lastSeq, nextId);
+            Files.deleteIfExists(journal.getSealedPath());
+        } catch (IOException | KiwiException | RuntimeException e) {
+            System.err.println("Kiwi: journal compaction failed, will retry on next load: " + e.getMessage());
         }
     }
 
     /**
-     * Trims leading and trailing whitespaces from each element in the array.
+     * Applies a single journal record of the form {@code <op> | <payload>} to the task list.
+     *
+     * @return The id of the task the record adds or writes, or 0 if it writes none.
      */
-    private void trimParts(String[] parts) {
-        for (int i = 0; i < parts.length; i++) {
-            parts[i] = parts[i].trim();
+    private long applyRecord(String record, ArrayList<Task> tasks) throws KiwiException {
+        int opEnd = record.indexOf(RECORD_SEPARATOR);
+        if (opEnd < 0) {
+            throw new KiwiException("Invalid journal record");
+        }
+        String op = record.substring(0, opEnd);
+        String payload = record.substring(opEnd + RECORD_SEPARATOR.length());
+
+        Task written = null;
+        switch (op) {
+        case RECORD_ADD:
+            written = parseJournaledTask(payload);
+            tasks.add(written);
+            break;
+        case RECORD_MARK:
+            tasks.get(Integer.parseInt(payload.trim())).markAsDone();
+            break;
+        case RECORD_UNMARK:
+            tasks.get(Integer.parseInt(payload.trim())).markAsUndone();
+            break;
+        case RECORD_DELETE:
+            tasks.remove(Integer.parseInt(payload.trim()));
+            break;
+        case RECORD_INSERT:
+            int insertEnd = payload.indexOf(RECORD_SEPARATOR);
+            written = parseJournaledTask(payload.substring(insertEnd + RECORD_SEPARATOR.length()));
+            tasks.add(Integer.parseInt(payload.substring(0, insertEnd).trim()), written);
+            break;
+        case RECORD_REPLACE:
+            int indexEnd = payload.indexOf(RECORD_SEPARATOR);
+            int index = Integer.parseInt(payload.substring(0, indexEnd).trim());
+            written = parseJournaledTask(payload.substring(indexEnd + RECORD_SEPARATOR.length()));
+            tasks.set(index, written);
+            break;
+        default:
+            throw new KiwiException("Invalid journal record");
         }
+        return written == null ? 0 : written.getId();
+    }
+
+    private Task parseJournaledTask(String line) throws KiwiException {
+        Task task = TextTaskCodec.parseLine(line);
+        if (task == null) {
+            throw new KiwiException("Invalid journal record");
+        }
+        return task;
     }
 }
@@ -0,0 +1,558 @@
+package kiwi.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import kiwi.exception.KiwiException;
+import kiwi.task.Deadline;
+import kiwi.task.Event;
+import kiwi.task.Task;
+import kiwi.task.Todo;
+
+/**
+ * Reads and writes the pipe-delimited text task format in bulk.
+ * <p>
+ * A line may start with the task's id as an extra field, as in {@code @12 | T | 0 | read book}. Lines written
+ * before tasks had ids have no such field.
+ * <p>
+ * Snapshots start with a header line, {@code # kiwi-snapshot | <seq> | <next id>}, holding the last journal
+ * sequence number they contain and the id the next new task gets. Headers written before the next id was
+ * stored end after the sequence number.
+ * <p>
+ * Reading maps the file with a {@link FileChannel}, splits it into line-aligned chunks and parses the
+ * chunks in parallel. Each line is parsed by a single-pass field scanner that records field boundaries
+ * in reused arrays, so the only per-line allocations are the resulting strings and task.
+ * Writing encodes tasks straight into a direct {@link ByteBuffer} (see {@link ChannelWriter})
+ * instead of going through {@link String#format}.
+ */
+final class TextTaskCodec {
+    static final String SNAPSHOT_HEADER = "# kiwi-snapshot";
+
+    private static final byte FIELD_SEPARATOR = '|';
+    private static final byte ID_MARKER = '@';
+    private static final byte[] SEPARATOR_BYTES = " | ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER_BYTES = SNAPSHOT_HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_FIELDS = 6;
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int MIN_CHUNK_SIZE = 1 << 18;
+    private static final int MAX_CHUNK_SIZE = 1 << 28;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final LocalTime DEFAULT_TIME = LocalTime.of(23, 59);
+
+    private TextTaskCodec() {
+    }
+
+    /**
+     * Reads a snapshot file. Returns an empty snapshot if the file does not exist.
+     *
+     * @param path The snapshot file.
+     * @return The tasks in file order and the journal sequence number and next id from the header, if any.
+     * @throws IOException If the file cannot be read.
+     * @throws KiwiException If a line is malformed.
+     */
+    static Snapshot read(Path path) throws IOException, KiwiException {
+        if (!Files.exists(path)) {
+            return new Snapshot(new ArrayList<>(), 0, 0);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            int chunkCount = bounds.length - 1;
+            if (chunkCount == 1) {
+                return merge(List.of(parseChunk(channel, bounds[0], bounds[1])));
+            }
+            List<CompletableFuture<ChunkParser>> futures = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                futures.add(CompletableFuture.supplyAsync(() -> parseChunkUnchecked(channel, start, end)));
+            }
+            List<ChunkParser> chunks = new ArrayList<>(chunkCount);
+            for (CompletableFuture<ChunkParser> future : futures) {
+                chunks.add(join(future));
+            }
+            return merge(chunks);
+        }
+    }
+
+    /**
+     * Parses a single line in the text format, as used by journal records.
+     *
+     * @param line The line to parse.
+     * @return The task, or null for lines that do not describe a task.
+     * @throws KiwiException If the line is malformed.
+     */
+    static Task parseLine(String line) throws KiwiException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        ChunkParser parser = new ChunkParser(bytes);
+        return parser.parseTask(0, bytes.length);
+    }
+
+    /**
+     * Formats a single task as a line in the text format, including its id if it has one.
+     *
+     * @param task The task to format.
+     * @return The line, without a line terminator.
+     */
+    static String formatLine(Task task) {
+        if (task.getId() == 0) {
+            return task.toFileFormat();
+        }
+        return (char) ID_MARKER + Long.toString(task.getId()) + " | " + task.toFileFormat();
+    }
+
+    /**
+     * Writes a snapshot file, forcing it to the device before returning.
+     *
+     * @param path The file to (over)write.
+     * @param tasks The tasks to write, in order.
+     * @param seq The last journal sequence number contained in the tasks.
+     * @param nextId The id the next new task gets.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(Path path, List<Task> tasks, long seq, long nextId) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Encoder encoder = new Encoder(channel);
+            encoder.putHeader(seq, nextId);
+            for (Task task : tasks) {
+                encoder.putTask(task);
+                encoder.putLineEnd();
+            }
+            encoder.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Splits the file into chunks that start right after a line terminator.
+     * Small files are a single chunk; larger ones get roughly one chunk per core.
+     */
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < PARALLEL_THRESHOLD) {
+            return new long[] {0, size};
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / cores + 1));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = chunkSize;
+        ByteBuffer probe = ByteBuffer.allocateDirect(4096);
+        while (position < size) {
+            long lineEnd = nextLineStart(channel, position, probe);
+            if (lineEnd >= size) {
+                break;
+            }
+            bounds.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        long current = position;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, current);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return current + i + 1;
+                }
+            }
+            current += read;
+        }
+    }
+
+    private static ChunkParser parseChunk(FileChannel channel, long start, long end)
+            throws IOException, KiwiException {
+        int length = (int) (end - start);
+        byte[] bytes = new byte[length];
+        if (length > 0) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            mapped.get(bytes);
+        }
+        ChunkParser parser = new ChunkParser(bytes);
+        parser.parseAll();
+        return parser;
+    }
+
+    private static ChunkParser parseChunkUnchecked(FileChannel channel, long start, long end) {
+        try {
+            return parseChunk(channel, start, end);
+        } catch (IOException | KiwiException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static ChunkParser join(CompletableFuture<ChunkParser> future) throws IOException, KiwiException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof KiwiException) {
+                throw (KiwiException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Snapshot merge(List<ChunkParser> chunks) {
+        int total = 0;
+        long seq = 0;
+        long nextId = 0;
+        for (ChunkParser chunk : chunks) {
+            total += chunk.tasks.size();
+            seq = Math.max(seq, chunk.seq);
+            nextId = Math.max(nextId, chunk.nextId);
+        }
+        ArrayList<Task> tasks = new ArrayList<>(total);
+        for (ChunkParser chunk : chunks) {
+            tasks.addAll(chunk.tasks);
+        }
+        return new Snapshot(tasks, seq, nextId);
+    }
+
+    /**
+     * Scans the lines of one chunk. Field boundaries of the current line are kept in fixed arrays
+     * that are reused for every line.
+     */
+    private static final class ChunkParser {
+        private final byte[] bytes;
+        private final int[] fieldStart = new int[MAX_FIELDS];
+        private final int[] fieldEnd = new int[MAX_FIELDS];
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private int fieldCount;
+        private long seq;
+        private long nextId;
+
+        ChunkParser(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        void parseAll() throws KiwiException {
+            int lineStart = 0;
+            while (lineStart < bytes.length) {
+                int lineEnd = lineStart;
+                while (lineEnd < bytes.length && bytes[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && bytes[contentEnd - 1] == '\r') {
+                    contentEnd--;
+                }
+                if (startsWith(lineStart, contentEnd, HEADER_BYTES)) {
+                    parseHeader(lineStart, contentEnd);
+                } else {
+                    Task task = parseTask(lineStart, contentEnd);
+                    if (task != null) {
+                        tasks.add(task);
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        /**
+         * Parses one line with the same rules as splitting on '|' and trimming every field:
+         * lines with fewer than three fields and unknown types are skipped.
+         */
+        Task parseTask(int start, int end) throws KiwiException {
+            scanFields(start, end);
+            long id = 0;
+            if (fieldCount > 0 && fieldLength(0) > 1 && bytes[fieldStart[0]] == ID_MARKER) {
+                id = parseId();
+                dropFirstField();
+            }
+            if (fieldCount < 3) {
+                return null;
+            }
+            if (fieldLength(0) != 1) {
+                return null;
+            }
+            boolean isDone = fieldLength(1) == 1 && bytes[fieldStart[1]] == '1';
+
+            Task task;
+            switch (bytes[fieldStart[0]]) {
+            case 'T':
+                if (fieldLength(2) == 0) {
+                    throw new KiwiException("Invalid todo format");
+                }
+                task = new Todo(field(2));
+                break;
+            case 'D':
+                if (fieldCount < 4) {
+                    throw new KiwiException("Invalid deadline format");
+                }
+                task = parseDeadline();
+                break;
+            case 'E':
+                if (fieldCount < 5) {
+                    throw new KiwiException("Invalid event format");
+                }
+                task = new Event(field(2), field(3), field(4));
+                break;
+            default:
+                return null;
+            }
+
+            if (isDone) {
+                task.markAsDone();
+            }
+            task.setId(id);
+            return task;
+        }
+
+        private long parseId() throws KiwiException {
+            long value = 0;
+            for (int i = fieldStart[0] + 1; i < fieldEnd[0]; i++) {
+                byte b = bytes[i];
+                if (b < '0' || b > '9') {
+                    throw new KiwiException("Invalid task id");
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private void dropFirstField() {
+            fieldCount--;
+            System.arraycopy(fieldStart, 1, fieldStart, 0, fieldCount);
+            System.arraycopy(fieldEnd, 1, fieldEnd, 0, fieldCount);
+        }
+
+        /**
+         * Records the trimmed bounds of up to {@link #MAX_FIELDS} fields in one pass.
+         * Trailing empty fields are not counted, matching {@link String#split(String)}.
+         */
+        private void scanFields(int start, int end) {
+            fieldCount = 0;
+            int totalFields = 0;
+            int lastNonEmptyField = 0;
+            int fieldBegin = start;
+            for (int i = start; i <= end; i++) {
+                if (i < end && bytes[i] != FIELD_SEPARATOR) {
+                    continue;
+                }
+                if (i > fieldBegin) {
+                    lastNonEmptyField = totalFields + 1;
+                }
+                if (totalFields < MAX_FIELDS) {
+                    int trimmedStart = fieldBegin;
+                    int trimmedEnd = i;
+                    while (trimmedStart < trimmedEnd && (bytes[trimmedStart] & 0xff) <= ' ') {
+                        trimmedStart++;
+                    }
+                    while (trimmedEnd > trimmedStart && (bytes[trimmedEnd - 1] & 0xff) <= ' ') {
+                        trimmedEnd--;
+                    }
+                    fieldStart[totalFields] = trimmedStart;
+                    fieldEnd[totalFields] = trimmedEnd;
+                }
+                totalFields++;
+                fieldBegin = i + 1;
+            }
+            fieldCount = Math.min(lastNonEmptyField, MAX_FIELDS);
+        }
+
+        /**
+         * Builds a deadline, decoding the common "yyyy-MM-dd[ HH:mm]" form directly from the bytes.
+         */
+        private Task parseDeadline() throws KiwiException {
+            int start = fieldStart[3];
+            int length = fieldLength(3);
+            boolean hasDate = length >= 10 && isDate(start);
+            boolean hasTime = length == 16 && bytes[start + 10] == ' ' && isTime(start + 11);
+            if (hasDate && (length == 10 || hasTime)) {
+                try {
+                    LocalDate date = LocalDate.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2));
+                    LocalTime time = hasTime ? LocalTime.of(digits(start + 11, 2), digits(start + 14, 2))
+                            : DEFAULT_TIME;
+                    return new Deadline(field(2), date, time);
+                } catch (DateTimeException e) {
+                    throw new KiwiException("Invalid date/time format. Expected format: yyyy-MM-dd [HH:mm]");
+                }
+            }
+            return new Deadline(field(2), field(3));
+        }
+
+        private boolean isDate(int start) {
+            return isDigits(start, 4) && bytes[start + 4] == '-' && isDigits(start + 5, 2)
+                    && bytes[start + 7] == '-' && isDigits(start + 8, 2);
+        }
+
+        private boolean isTime(int start) {
+            return isDigits(start, 2) && bytes[start + 2] == ':' && isDigits(start + 3, 2);
+        }
+
+        private boolean isDigits(int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                if (bytes[i] < '0' || bytes[i] > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int digits(int start, int count) {
+            int value = 0;
+            for (int i = start; i < start + count; i++) {
+                value = value * 10 + (bytes[i] - '0');
+            }
+            return value;
+        }
+
+        /**
+         * Reads the sequence number and, if present, the next id from the header's '|'-separated fields.
+         */
+        private void parseHeader(int start, int end) {
+            long[] values = new long[2];
+            int field = -1;
+            for (int i = start + HEADER_BYTES.length; i < end; i++) {
+                byte b = bytes[i];
+                if (b == FIELD_SEPARATOR) {
+                    field++;
+                } else if (b >= '0' && b <= '9' && field >= 0 && field < values.length) {
+                    values[field] = values[field] * 10 + (b - '0');
+                }
+            }
+            seq = values[0];
+            nextId = values[1];
+        }
+
+        private boolean startsWith(int start, int end, byte[] prefix) {
+            if (end - start < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (bytes[start + i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int fieldLength(int field) {
+            return fieldEnd[field] - fieldStart[field];
+        }
+
+        private String field(int field) {
+            return new String(bytes, fieldStart[field], fieldLength(field), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Encodes tasks in the text format into a {@link ChannelWriter}.
+     */
+    private static final class Encoder {
+        private final ChannelWriter out;
+
+        Encoder(FileChannel channel) {
+            this.out = new ChannelWriter(channel, WRITE_BUFFER_SIZE);
+        }
+
+        void putTask(Task task) throws IOException {
+            if (task.getId() != 0) {
+                out.putByte(ID_MARKER);
+                out.putAscii(Long.toString(task.getId()));
+                out.put(SEPARATOR_BYTES);
+            }
+            if (task instanceof Todo) {
+                putHead('T', task);
+            } else if (task instanceof Deadline) {
+                Deadline deadline = (Deadline) task;
+                putHead('D', task);
+                out.put(SEPARATOR_BYTES);
+                putDateTime(deadline.getDate(), deadline.getTime());
+            } else if (task instanceof Event) {
+                Event event = (Event) task;
+                putHead('E', task);
+                out.put(SEPARATOR_BYTES);
+                putString(event.getFrom());
+                out.put(SEPARATOR_BYTES);
+                putString(event.getTo());
+            } else {
+                putString(task.toFileFormat());
+            }
+        }
+
+        private void putHead(char type, Task task) throws IOException {
+            out.putByte(type);
+            out.put(SEPARATOR_BYTES);
+            out.putByte(task.isDone() ? '1' : '0');
+            out.put(SEPARATOR_BYTES);
+            putString(task.getDescription());
+        }
+
+        private void putDateTime(LocalDate date, LocalTime time) throws IOException {
+            if (date.getYear() < 0 || date.getYear() > 9999) {
+                out.putAscii(date.toString());
+            } else {
+                putDigits(date.getYear(), 4);
+                out.putByte('-');
+                putDigits(date.getMonthValue(), 2);
+                out.putByte('-');
+                putDigits(date.getDayOfMonth(), 2);
+            }
+            out.putByte(' ');
+            putDigits(time.getHour(), 2);
+            out.putByte(':');
+            putDigits(time.getMinute(), 2);
+        }
+
+        private void putDigits(int value, int width) throws IOException {
+            for (int divisor = (int) Math.pow(10, width - 1); divisor > 0; divisor /= 10) {
+                out.putByte('0' + (value / divisor) % 10);
+            }
+        }
+
+        /**
+         * Writes a string as UTF-8, copying ASCII characters directly and encoding anything else in one go.
+         */
+        private void putString(String value) throws IOException {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    out.put(value.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+            }
+            out.putAscii(value);
+        }
+
+        void putHeader(long seq, long nextId) throws IOException {
+            out.putAscii(SNAPSHOT_HEADER);
+            out.put(SEPARATOR_BYTES);
+            out.putAscii(Long.toString(seq));
+            out.put(SEPARATOR_BYTES);
+            out.putAscii(Long.toString(nextId));
+            out.putByte('\n');
+        }
+
+        void putLineEnd() throws IOException {
+            out.putByte('\n');
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
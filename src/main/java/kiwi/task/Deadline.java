@@ -38,6 +38,20 @@ public class Deadline extends Task {
         }
     }
 
+    /**
+     * Constructs a deadline task from an already parsed date and time.
+     * Used by storage when loading, so that no date text has to be parsed again.
+     *
+     * @param description Task description
+     * @param date        Due date
+     * @param time        Due time; 23:59 stands for "no time given"
+     */
+    public Deadline(String description, LocalDate date, LocalTime time) {
+        super(description);
+        this.date = date;
+        this.time = time;
+    }
+
     /**
      * Returns formatted string with deadline details.
      * Includes time only if not default (23:59). Example output:
@@ -64,6 +78,14 @@ public class Deadline extends Task {
         return date + " " + time;
     }
 
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
     public String getBy() {
         return date.toString() + " " + time.format(DateTimeFormatter.ofPattern("HH:mm"));
     }
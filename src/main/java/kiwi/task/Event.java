@@ -1,13 +1,22 @@
 package kiwi.task;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
 /**
  * Represents an event task with a start and end time/duration.
  * Inherits base task functionality from {@link Task}.
- * Events are stored and displayed with user-provided time descriptors without parsing.
+ * Events are stored and displayed with user-provided time descriptors. When both descriptors are dates
+ * ("yyyy-MM-dd [HH:mm]", or just "HH:mm" for an end on the start day), the event also gets a parsed
+ * start and end, which places it on the calendar for agenda and clash queries.
  */
 public class Event extends Task {
     protected String from;
     protected String to;
+    protected LocalDateTime start;
+    protected LocalDateTime end;
 
     /**
      * Creates an event task with description and time range.
@@ -20,6 +29,67 @@ public class Event extends Task {
         super(description);
         this.from = from;
         this.to = to;
+        parseSchedule();
+    }
+
+    /**
+     * Parses the start and end from the time descriptors, leaving both null if they are free-form text.
+     * A date without a time starts at the beginning of that day and ends at the end of it, so the event
+     * covers the half-open range {@code [start, end)}.
+     */
+    private void parseSchedule() {
+        LocalDateTime parsedStart = parseDateTime(from, false);
+        if (parsedStart == null) {
+            return;
+        }
+        LocalDateTime parsedEnd = parseDateTime(to, true);
+        if (parsedEnd == null) {
+            LocalTime endTime = parseTime(to);
+            parsedEnd = endTime == null ? null : parsedStart.toLocalDate().atTime(endTime);
+        }
+        if (parsedEnd != null && parsedEnd.isAfter(parsedStart)) {
+            start = parsedStart;
+            end = parsedEnd;
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String text, boolean isEnd) {
+        String trimmed = text.trim();
+        int space = trimmed.indexOf(' ');
+        String datePart = space < 0 ? trimmed : trimmed.substring(0, space);
+        if (!isDate(datePart)) {
+            return null;
+        }
+        try {
+            LocalDate date = LocalDate.parse(datePart);
+            if (space < 0) {
+                return isEnd ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+            }
+            LocalTime time = parseTime(trimmed.substring(space + 1));
+            return time == null ? null : date.atTime(time);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks the shape of a date before parsing it, so that free-form text does not cost an exception.
+     */
+    private static boolean isDate(String text) {
+        return text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-'
+                && Character.isDigit(text.charAt(0));
+    }
+
+    private static LocalTime parseTime(String text) {
+        String trimmed = text.trim();
+        if (trimmed.length() != 5 || trimmed.charAt(2) != ':' || !Character.isDigit(trimmed.charAt(0))) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     /**
@@ -39,6 +109,21 @@ public class Event extends Task {
         return to;
     }
 
+    /**
+     * Returns whether the event has a parsed start and end.
+     */
+    public boolean isScheduled() {
+        return start != null;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
     /**
      * Generates file storage entry with format:
      * E | [0/1] | [description] | [from] | [to]
@@ -3,10 +3,18 @@ package kiwi.task;
 /**
  * Represents a generic task with a description and completion status.
  * Serves as the base class for specific task types (Todo, Deadline, Event).
+ * <p>
+ * A task gets an id when it is first added to a task list. Unlike the task's position, the id never changes,
+ * and it is saved with the task.
+ * <p>
+ * A task is only changed while it is being built, for example while it is loaded from disk. Once it is in a
+ * task list it is never changed again: marking it replaces it with a copy from {@link #withDone(boolean)},
+ * so it can be shared with other threads and kept in snapshots without locking.
  */
-public class Task {
+public class Task implements Cloneable {
     protected String description;
     protected boolean isDone;
+    protected long id;
 
     /**
      * Creates a task with the specified description.
@@ -28,14 +36,46 @@ public class Task {
         return (isDone ? "X" : " ");
     }
 
+    /**
+     * Marks this task as done. Only for tasks that are not in a task list yet; see {@link #withDone(boolean)}.
+     */
     public void markAsDone() {
         this.isDone = true;
     }
 
+    /**
+     * Marks this task as not done. Only for tasks that are not in a task list yet; see {@link #withDone(boolean)}.
+     */
     public void markAsUndone() {
         this.isDone = false;
     }
 
+    /**
+     * Returns a copy of this task with the given completion status. The copy shares everything else with
+     * this task, which is safe because tasks in a list are never changed.
+     *
+     * @param isDone Whether the copy is done.
+     * @return A new task of the same type.
+     */
+    public Task withDone(boolean isDone) {
+        try {
+            Task copy = (Task) clone();
+            copy.isDone = isDone;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Sets the task's id. Only for tasks that are not in a task list yet.
+     *
+     * @param id The id, which must be positive.
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -44,6 +84,13 @@ public class Task {
         return isDone;
     }
 
+    /**
+     * Returns the task's id, or 0 if it has not been given one yet.
+     */
+    public long getId() {
+        return id;
+    }
+
     /**
      * Converts the task to a standardized format for file storage.
      * Must be implemented by concrete subclasses.
@@ -1,10 +1,18 @@
 package kiwi.ui;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import kiwi.command.CommandType;
 import kiwi.command.TaskList;
 import kiwi.exception.KiwiException;
+import kiwi.metrics.AllocationProfiler;
+import kiwi.metrics.LatencyHistogram;
+import kiwi.metrics.Metrics;
 import kiwi.task.Task;
 
 /**
@@ -62,6 +70,52 @@ public class Ui {
         return "Noted. I've removed this task:\n  " + task + "\nNow you have " + size + " tasks in the list.";
     }
 
+    /**
+     * Returns a message indicating that several tasks have been marked as done with one command.
+     *
+     * @param markedCount The number of tasks that were marked.
+     * @param selectedCount The number of tasks selected, including those that were already done.
+     * @return The message indicating how many tasks are marked as done.
+     */
+    public String showBulkMarkMessage(int markedCount, int selectedCount) {
+        return "Nice! I've marked " + countTasks(markedCount) + " as done." + describeSkipped(markedCount,
+                selectedCount, "done");
+    }
+
+    /**
+     * Returns a message indicating that several tasks have been marked as not done with one command.
+     *
+     * @param unmarkedCount The number of tasks that were unmarked.
+     * @param selectedCount The number of tasks selected, including those that were already not done.
+     * @return The message indicating how many tasks are marked as not done.
+     */
+    public String showBulkUnmarkMessage(int unmarkedCount, int selectedCount) {
+        return "OK, I've marked " + countTasks(unmarkedCount) + " as not done yet."
+                + describeSkipped(unmarkedCount, selectedCount, "not done");
+    }
+
+    /**
+     * Returns a message indicating that several tasks have been deleted with one command.
+     *
+     * @param removedCount The number of tasks that were deleted.
+     * @param size The number of tasks remaining in the task list.
+     * @return The message indicating how many tasks are deleted.
+     */
+    public String showBulkDeleteMessage(int removedCount, int size) {
+        return "Noted. I've removed " + countTasks(removedCount) + ".\nNow you have " + size
+                + " tasks in the list.";
+    }
+
+    private static String countTasks(int count) {
+        return count + (count == 1 ? " task" : " tasks");
+    }
+
+    private static String describeSkipped(int changedCount, int selectedCount, String status) {
+        int skipped = selectedCount - changedCount;
+        return skipped == 0 ? "" : "\n" + countTasks(skipped) + " you picked " + (skipped == 1 ? "was" : "were")
+                + " already " + status + ".";
+    }
+
     /**
      * Returns a message indicating that a new task has been added.
      *
@@ -70,7 +124,7 @@ public class Ui {
      * @return The message indicating the task is added.
      */
     public String showAddMessage(Task task, int size) {
-        return "Got it. I've added this task:\n  " + task + "\nNow you have " + size + " tasks in the list.";
+        return "Got it. I've added this task:\n  " + withId(task) + "\nNow you have " + size + " tasks in the list.";
     }
 
     /**
@@ -85,27 +139,45 @@ public class Ui {
     }
 
     /**
-     * Returns a list of tasks in the task list.
+     * Returns one page of the task list. Only the tasks on the requested page are passed in and formatted,
+     * so the cost does not depend on the length of the list.
      *
-     * @param tasks The TaskList containing tasks.
-     * @return A formatted string listing all tasks.
-     * @throws KiwiException If there is an error retrieving tasks.
+     * @param pageTasks The tasks on the page, in list order.
+     * @param page The 1-based page number, which must lie within the list.
+     * @param pageSize The number of tasks per page.
+     * @param totalCount The number of tasks in the whole list.
+     * @return A formatted string listing the tasks on the page, with their position in the list and their id.
      */
-    public String printTasks(TaskList tasks) throws KiwiException {
-        if (tasks.size() == 0) {
+    public String printPage(List<Task> pageTasks, int page, int pageSize, int totalCount) {
+        if (totalCount == 0) {
             return "Your task list is empty!";
-        } else {
-            String tasksList = IntStream.range(0, tasks.size())
-                    .mapToObj(i -> {
-                        try {
-                            return (i + 1) + "." + tasks.getTask(i);
-                        } catch (KiwiException e) {
-                            throw new RuntimeException(e);
-                        }
-                    })
-                    .collect(Collectors.joining("\n"));
-            return ("Here are the tasks in your list:\n" + tasksList).trim();
         }
+        int pageCount = countPages(totalCount, pageSize);
+        int from = (page - 1) * pageSize;
+        int to = from + pageTasks.size();
+        StringBuilder builder = new StringBuilder("Here are the tasks in your list (")
+                .append(from + 1).append('-').append(to).append(" of ").append(totalCount)
+                .append(", page ").append(page).append(" of ").append(pageCount).append("):");
+        for (int i = 0; i < pageTasks.size(); i++) {
+            builder.append('\n').append(from + i + 1).append('.');
+            appendWithId(builder, pageTasks.get(i));
+        }
+        if (page < pageCount) {
+            builder.append("\nType 'list next' to see more.");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns how many pages a list of the given length fills, rounding up. Works for any page size, up to
+     * {@link Integer#MAX_VALUE}.
+     *
+     * @param totalCount The number of tasks in the list.
+     * @param pageSize The number of tasks per page.
+     * @return The number of pages, 0 for an empty list.
+     */
+    public static int countPages(int totalCount, int pageSize) {
+        return (int) ((totalCount + (long) pageSize - 1) / pageSize);
     }
 
     /**
@@ -141,7 +213,7 @@ public class Ui {
             String tasksList = IntStream.range(0, matchingTasks.size())
                     .mapToObj(i -> {
                         try {
-                            return (i + 1) + "." + matchingTasks.getTask(i);
+                            return (i + 1) + "." + withId(matchingTasks.getTask(i));
                         } catch (KiwiException e) {
                             throw new RuntimeException(e);
                         }
@@ -151,6 +223,268 @@ public class Ui {
         }
     }
 
+    /**
+     * Returns the deadlines due on a given date.
+     *
+     * @param date The date that was looked up.
+     * @param dueTasks The TaskList containing the deadlines due on that date.
+     * @return A formatted string listing the deadlines.
+     * @throws KiwiException If there is an error retrieving tasks.
+     */
+    public String showDueTasks(LocalDate date, TaskList dueTasks) throws KiwiException {
+        String day = date.format(DateTimeFormatter.ofPattern("MMM d yyyy"));
+        if (dueTasks.size() == 0) {
+            return "Nothing is due on " + day + ".";
+        }
+        return "Here are the deadlines due on " + day + ":\n" + numberTasks(dueTasks);
+    }
+
+    /**
+     * Returns the deadlines that are past due and not done yet.
+     *
+     * @param overdueTasks The TaskList containing the overdue deadlines.
+     * @return A formatted string listing the overdue deadlines.
+     * @throws KiwiException If there is an error retrieving tasks.
+     */
+    public String showOverdueTasks(TaskList overdueTasks) throws KiwiException {
+        if (overdueTasks.size() == 0) {
+            return "No overdue deadlines. Well done!";
+        }
+        return "These deadlines are overdue:\n" + numberTasks(overdueTasks);
+    }
+
+    /**
+     * Returns the next deadlines that are not done yet.
+     *
+     * @param upcomingTasks The TaskList containing the upcoming deadlines.
+     * @return A formatted string listing the upcoming deadlines.
+     * @throws KiwiException If there is an error retrieving tasks.
+     */
+    public String showUpcomingTasks(TaskList upcomingTasks) throws KiwiException {
+        if (upcomingTasks.size() == 0) {
+            return "No upcoming deadlines.";
+        }
+        return "Here are your upcoming deadlines:\n" + numberTasks(upcomingTasks);
+    }
+
+    /**
+     * Returns the events and deadlines on a given date.
+     *
+     * @param date The date that was looked up.
+     * @param events The TaskList containing the events on that date.
+     * @param deadlines The TaskList containing the deadlines due on that date.
+     * @return A formatted string listing the events, then the deadlines.
+     * @throws KiwiException If there is an error retrieving tasks.
+     */
+    public String showAgenda(LocalDate date, TaskList events, TaskList deadlines) throws KiwiException {
+        String day = date.format(DateTimeFormatter.ofPattern("MMM d yyyy"));
+        if (events.size() == 0 && deadlines.size() == 0) {
+            return "Nothing scheduled on " + day + ".";
+        }
+        StringBuilder builder = new StringBuilder("Here is your agenda for " + day + ":");
+        if (events.size() > 0) {
+            builder.append("\nEvents:\n").append(numberTasks(events));
+        }
+        if (deadlines.size() > 0) {
+            builder.append("\nDeadlines:\n").append(numberTasks(deadlines));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns a warning listing the events that clash with a new event, or an empty string if there are none.
+     *
+     * @param clashes The TaskList containing the clashing events.
+     * @return The warning to append to the add message.
+     * @throws KiwiException If there is an error retrieving tasks.
+     */
+    public String showClashes(TaskList clashes) throws KiwiException {
+        if (clashes.size() == 0) {
+            return "";
+        }
+        return "\nHeads up, this clashes with:\n" + numberTasks(clashes);
+    }
+
+    /**
+     * Returns a message confirming that a batch has started.
+     *
+     * @return The message explaining how to finish the batch.
+     */
+    public String showBatchStarted() {
+        return "Batch started. Your changes will be saved together when you type 'commit',"
+                + " or undone if you type 'rollback' or a command fails.";
+    }
+
+    /**
+     * Returns a message confirming that a batch was saved.
+     *
+     * @param changeCount The number of changes in the batch.
+     * @param size The number of tasks in the task list.
+     * @return The message confirming the batch.
+     */
+    public String showBatchCommitted(int changeCount, int size) {
+        return "Batch saved with " + changeCount + " change" + (changeCount == 1 ? "" : "s")
+                + ". Now you have " + size + " tasks in the list.";
+    }
+
+    /**
+     * Returns a message confirming that the user discarded a batch.
+     *
+     * @return The message confirming the rollback.
+     */
+    public String showBatchDiscarded() {
+        return "Batch rolled back. None of its changes were kept.";
+    }
+
+    /**
+     * Returns an error message for a command that failed inside a batch, which rolled the batch back.
+     *
+     * @param message The error message of the failed command.
+     * @return The error message, followed by a note that the batch was rolled back.
+     */
+    public String showBatchRolledBack(String message) {
+        return showError(message) + "\nI rolled back the batch, so none of its changes were kept.";
+    }
+
+    /**
+     * Returns a message confirming that earlier changes were undone.
+     *
+     * @param changes The changes made to the list to undo them.
+     * @param size The number of tasks in the task list.
+     * @return The message confirming the undo.
+     */
+    public String showUndoMessage(List<TaskList.Change> changes, int size) {
+        return "Undone! I took back " + describeChanges(changes) + "\nNow you have " + size + " tasks in the list.";
+    }
+
+    /**
+     * Returns a message confirming that undone changes were made again.
+     *
+     * @param changes The changes made to the list to redo them.
+     * @param size The number of tasks in the task list.
+     * @return The message confirming the redo.
+     */
+    public String showRedoMessage(List<TaskList.Change> changes, int size) {
+        return "Redone! I brought back " + describeChanges(changes) + "\nNow you have " + size
+                + " tasks in the list.";
+    }
+
+    private static String describeChanges(List<TaskList.Change> changes) {
+        if (changes.size() > 1) {
+            return changes.size() + " changes.";
+        }
+        TaskList.Change change = changes.get(0);
+        Task task = change.getAddedTask() != null ? change.getAddedTask() : change.getRemovedTask();
+        return "the change to:\n  " + task;
+    }
+
+    /**
+     * Returns the command and storage statistics collected since Kiwi started.
+     *
+     * @param metrics The collected metrics.
+     * @param tasks A snapshot of the task list, for the current count of each task type.
+     * @return A formatted report, one line per command type that has run.
+     */
+    public String showStats(Metrics metrics, TaskList.Snapshot tasks) {
+        int deadlines = tasks.getDeadlineCount();
+        int events = tasks.getEventCount();
+        StringBuilder builder = new StringBuilder("Here are my stats since I started:\n")
+                .append("Tasks: ").append(tasks.size()).append(" (").append(tasks.size() - deadlines - events)
+                .append(" todos, ").append(deadlines).append(" deadlines, ").append(events).append(" events)\n")
+                .append("Commands:");
+        for (CommandType type : CommandType.values()) {
+            LatencyHistogram latency = metrics.getCommandLatency(type);
+            if (latency != null) {
+                builder.append("\n  ").append(type.getKeyword()).append(": ").append(latency.getCount())
+                        .append(" run, ").append(metrics.getCommandErrors(type)).append(" failed, ")
+                        .append(formatLatency(latency));
+            }
+        }
+        if (metrics.getUnknownCommands() > 0) {
+            builder.append("\n  unknown: ").append(metrics.getUnknownCommands());
+        }
+        LatencyHistogram snapshots = metrics.getSnapshotLatency();
+        LatencyHistogram journal = metrics.getJournalLatency();
+        builder.append("\nLoads: ").append(metrics.getLoadLatency().getCount()).append(", ")
+                .append(formatLatency(metrics.getLoadLatency()))
+                .append("\nSaves: ").append(snapshots.getCount()).append(", ")
+                .append(formatBytes(snapshots.getCount() == 0 ? 0 : metrics.getSnapshotBytes() / snapshots.getCount()))
+                .append(" each, ").append(formatLatency(snapshots))
+                .append("\nJournal writes: ").append(journal.getCount()).append(" (")
+                .append(metrics.getJournalRecords()).append(" records, ").append(formatBytes(metrics.getJournalBytes()))
+                .append("), ").append(formatLatency(journal));
+        return builder.toString();
+    }
+
+    /**
+     * Returns the bytes allocated per command type while allocation profiling was on.
+     *
+     * @param profiler The profiler that counted the allocations.
+     * @return A formatted report, one line per command type that has run.
+     */
+    public String showAllocations(AllocationProfiler profiler) {
+        StringBuilder builder = new StringBuilder("Memory allocated per command:");
+        for (CommandType type : CommandType.values()) {
+            long count = profiler.getCount(type);
+            if (count > 0) {
+                builder.append("\n  ").append(type.getKeyword()).append(": ").append(count).append(" run, ")
+                        .append(formatBytes(profiler.getBytes(type) / count)).append(" each, ")
+                        .append(formatBytes(profiler.getBytes(type))).append(" in total");
+            }
+        }
+        if (profiler.getUnknownCount() > 0) {
+            builder.append("\n  unknown: ").append(profiler.getUnknownCount()).append(" run, ")
+                    .append(formatBytes(profiler.getUnknownBytes() / profiler.getUnknownCount())).append(" each");
+        }
+        return builder.toString();
+    }
+
+    private static String formatLatency(LatencyHistogram latency) {
+        return "p50 " + formatNanos(latency.getPercentile(0.5)) + ", p99 " + formatNanos(latency.getPercentile(0.99))
+                + ", max " + formatNanos(latency.getMax());
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+        }
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    private String numberTasks(TaskList tasks) throws KiwiException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (i > 0) {
+                builder.append('\n');
+            }
+            builder.append(i + 1).append('.');
+            appendWithId(builder, tasks.getTask(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns a task followed by its id, which commands accept in place of the task's number.
+     */
+    private static String withId(Task task) {
+        return appendWithId(new StringBuilder(), task).toString();
+    }
+
+    private static StringBuilder appendWithId(StringBuilder builder, Task task) {
+        return builder.append(task).append(" (#").append(task.getId()).append(')');
+    }
+
     /**
      * Shows success message after editing a task.
      *
@@ -0,0 +1,34 @@
+package kiwi;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommandPipelineTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSubmit_appliesCommandsInSubmissionOrder() {
+        Kiwi kiwi = new Kiwi(tempDir.resolve("tasks.txt").toString());
+        CommandPipeline pipeline = new CommandPipeline(kiwi);
+
+        List<CompletableFuture<CommandResult>> replies = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            replies.add(pipeline.submit("todo task " + i));
+        }
+        CompletableFuture<CommandResult> found = pipeline.submit("find task 100");
+
+        for (int i = 0; i < replies.size(); i++) {
+            assertTrue(replies.get(i).join().getText().endsWith("Now you have " + (i + 1) + " tasks in the list."));
+        }
+        assertTrue(found.join().getText().contains("1.[T][ ] task 100"));
+        kiwi.close();
+    }
+}
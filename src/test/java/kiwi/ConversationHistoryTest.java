@@ -0,0 +1,41 @@
+package kiwi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ConversationHistoryTest {
+    @TempDir
+    Path tempDir;
+
+    private static ChatMessage message(int i) {
+        return new ChatMessage(i % 2 == 0 ? ChatMessage.Kind.USER : ChatMessage.Kind.KIWI, "message " + i + "\nend");
+    }
+
+    @Test
+    public void testAppend_spillsOldMessagesAndLoadsThemBack() throws IOException {
+        Path transcriptPath = tempDir.resolve("transcript.txt");
+        ConversationHistory history = new ConversationHistory(new Transcript(transcriptPath), 10, 4);
+        for (int i = 0; i < 25; i++) {
+            history.append(message(i));
+        }
+
+        assertEquals(11, history.getItems().size());
+        assertSame(ChatMessage.OLDER_MARKER, history.getItems().get(0));
+        assertEquals("message 15\nend", history.getItems().get(1).getText());
+
+        assertEquals(5, history.loadOlder());
+        assertEquals("message 11\nend", history.getItems().get(1).getText());
+        assertSame(ChatMessage.NEWER_MARKER, history.getItems().get(11));
+
+        history.append(message(25));
+        assertEquals("message 25\nend", history.getItems().get(10).getText());
+        assertEquals(ChatMessage.Kind.KIWI, history.getItems().get(10).getKind());
+        history.closeTranscript();
+    }
+}
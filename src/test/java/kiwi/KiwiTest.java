@@ -0,0 +1,325 @@
+package kiwi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import kiwi.exception.KiwiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KiwiTest {
+    @TempDir
+    Path tempDir;
+
+    private final List<Kiwi> openKiwis = new ArrayList<>();
+
+    /**
+     * Starts a Kiwi on the test's task file, which is closed after the test.
+     */
+    private Kiwi open() {
+        Kiwi kiwi = new Kiwi(tempDir.resolve("tasks.txt").toString());
+        openKiwis.add(kiwi);
+        return kiwi;
+    }
+
+    @AfterEach
+    public void closeKiwis() {
+        openKiwis.forEach(Kiwi::close);
+    }
+
+    @Test
+    public void testExecute_returnsStructuredResults() {
+        Kiwi kiwi = open();
+
+        CommandResult added = kiwi.execute("todo read book");
+        assertTrue(added.isSuccess());
+        assertEquals("read book", added.getAffectedTask().getDescription());
+        assertFalse(added.isExit());
+
+        CommandResult failed = kiwi.execute("mark 5");
+        assertEquals(CommandResult.Status.ERROR, failed.getStatus());
+        assertNull(failed.getAffectedTask());
+        assertTrue(failed.getText().startsWith("Error: "));
+
+        assertTrue(kiwi.execute("bye").isExit());
+    }
+
+    @Test
+    public void testClose_writesOutQueuedChangesOnce() {
+        Kiwi kiwi = open();
+        kiwi.execute("todo read book");
+        kiwi.close();
+        kiwi.close();
+
+        Kiwi reopened = open();
+        assertTrue(reopened.getResponse("list").contains("1.[T][ ] read book"));
+    }
+
+    @Test
+    public void testList_pagesThroughTheListAndWrapsAround() {
+        Kiwi kiwi = open();
+        assertEquals("Your task list is empty!", kiwi.getResponse("list"));
+        for (int i = 1; i <= 45; i++) {
+            kiwi.execute("todo task " + i);
+        }
+
+        String first = kiwi.getResponse("list");
+        assertTrue(first.startsWith("Here are the tasks in your list (1-20 of 45, page 1 of 3):\n1.[T][ ] task 1"));
+        assertTrue(first.endsWith("20.[T][ ] task 20 (#20)\nType 'list next' to see more."));
+        assertTrue(kiwi.getResponse("list next").contains("(21-40 of 45, page 2 of 3)"));
+        String last = kiwi.getResponse("list next");
+        assertTrue(last.contains("(41-45 of 45, page 3 of 3)"));
+        assertTrue(last.endsWith("45.[T][ ] task 45 (#45)"));
+        assertEquals("Error: That's the end of your list! Type 'list' to start from the top.",
+                kiwi.getResponse("list next"));
+        assertTrue(kiwi.getResponse("list next").contains("page 1 of 3"));
+        assertEquals("Error: There is no page 4! Your list has 3 pages.", kiwi.getResponse("list page 4"));
+
+        assertTrue(kiwi.getResponse("list size 10").contains("(1-10 of 45, page 1 of 5)"));
+        assertTrue(kiwi.getResponse("list page 5").contains("(41-45 of 45, page 5 of 5)"));
+        String all = kiwi.getResponse("list size 2147483647");
+        assertTrue(all.startsWith("Here are the tasks in your list (1-45 of 45, page 1 of 1):"));
+        assertFalse(all.contains("list next"));
+        assertTrue(kiwi.getResponse("list next").startsWith("Error: That's the end of your list!"));
+    }
+
+    @Test
+    public void testBatch_appliesAllOrNothing() {
+        Kiwi kiwi = open();
+
+        kiwi.execute("begin");
+        kiwi.execute("todo read book");
+        CommandResult failed = kiwi.execute("mark 7");
+        assertFalse(failed.isSuccess());
+        assertTrue(kiwi.getResponse("list").startsWith("Your task list is empty!"));
+
+        CommandResult committed = kiwi.executeScript(List.of("todo read book", "# comment", "", "mark 1",
+                "deadline return book /by 2025-04-02"));
+        assertTrue(committed.isSuccess());
+        assertEquals("Batch saved with 3 changes. Now you have 2 tasks in the list.", committed.getText());
+
+        CommandResult rolledBack = kiwi.executeScript(List.of("todo extra", "delete 9"));
+        assertTrue(rolledBack.getText().startsWith("Error: Line 2: "));
+        assertTrue(open().getResponse("list").contains("2.[D][ ] return book"));
+        assertTrue(kiwi.getResponse("list").contains("1.[T][X] read book"));
+
+        for (String command : List.of("begin", "commit", "rollback", "undo", "redo", "bye")) {
+            CommandResult rejected = kiwi.executeScript(List.of("todo extra", command, "todo more"));
+            assertEquals("Error: Line 2: A script runs as one batch, so it cannot use " + command + "!\n"
+                    + "I rolled back the batch, so none of its changes were kept.", rejected.getText());
+        }
+        assertFalse(kiwi.getResponse("list").contains("extra"));
+        assertEquals("Batch saved with 1 change. Now you have 3 tasks in the list.",
+                kiwi.executeScript(List.of("todo a", "# commit")).getText());
+        assertEquals(kiwi.getResponse("list"), open().getResponse("list"));
+    }
+
+    @Test
+    public void testBatch_staysOpenAfterErrorsThatChangeNothing() {
+        Kiwi kiwi = open();
+        kiwi.execute("begin");
+        kiwi.execute("todo a");
+        kiwi.execute("todo b");
+
+        for (String command : List.of("begin", "bye", "undo", "redo", "blah", "find", "due someday", "list page 9")) {
+            CommandResult failed = kiwi.execute(command);
+            assertFalse(failed.isSuccess());
+            assertFalse(failed.getText().contains("rolled back"), command);
+            assertTrue(kiwi.isInBatch(), command);
+        }
+        assertEquals("Error: Please commit or roll back the batch before leaving!", kiwi.getResponse("bye"));
+        assertTrue(kiwi.getResponse("list").contains("2.[T][ ] b"));
+
+        assertEquals("Batch saved with 2 changes. Now you have 2 tasks in the list.", kiwi.getResponse("commit"));
+        assertTrue(open().getResponse("list").contains("2.[T][ ] b"));
+    }
+
+    @Test
+    public void testUndoRedo_takeBackCommandsAndAreSaved() {
+        Kiwi kiwi = open();
+        kiwi.execute("todo read book");
+        kiwi.execute("todo buy milk");
+        kiwi.execute("mark 1");
+        kiwi.execute("delete 1");
+        kiwi.executeScript(List.of("todo a", "todo b"));
+
+        assertTrue(kiwi.getResponse("undo").startsWith("Undone! I took back 2 changes."));
+        assertTrue(kiwi.getResponse("undo").contains("Now you have 2 tasks in the list."));
+        assertTrue(kiwi.getResponse("list").contains("1.[T][X] read book"));
+        assertTrue(kiwi.getResponse("redo").contains("[T][X] read book"));
+        assertTrue(kiwi.getResponse("undo 9").contains("Now you have 0 tasks in the list."));
+        assertEquals("Error: There is nothing to undo!", kiwi.getResponse("undo"));
+        kiwi.execute("redo 2");
+        kiwi.execute("todo new");
+        assertEquals("Error: There is nothing to redo!", kiwi.getResponse("redo"));
+
+        kiwi.execute("begin");
+        kiwi.execute("todo again");
+        assertFalse(kiwi.execute("undo").isSuccess());
+        assertTrue(kiwi.getResponse("list").contains("again"));
+        kiwi.execute("rollback");
+        assertFalse(kiwi.getResponse("list").contains("again"));
+
+        kiwi.execute("todo again");
+        kiwi.execute("undo");
+        String expected = kiwi.getResponse("list");
+        kiwi.execute("bye");
+        assertEquals(expected, open().getResponse("list"));
+    }
+
+    @Test
+    public void testJournalFailure_leavesNoTraceOfTheCommand()
+            throws IOException, InterruptedException, KiwiException {
+        Kiwi kiwi = open();
+        kiwi.execute("todo read book");
+        kiwi.execute("todo buy milk");
+        kiwi.save();
+        // A directory in the journal's place makes every journal write fail on the writer thread. The failure
+        // is reported by the first command after it, so commands are repeated until one reports it.
+        Files.createDirectory(tempDir.resolve("tasks.txt.journal"));
+
+        CommandResult failed;
+        int attempt = 0;
+        do {
+            Thread.sleep(20);
+            attempt++;
+            failed = kiwi.execute("todo task " + attempt);
+        } while (failed.isSuccess() && attempt < 50);
+        assertEquals("Error: Error saving tasks to file", failed.getText());
+        String list = kiwi.getResponse("list");
+        assertFalse(list.contains("task " + attempt + " "));
+        assertTrue(list.contains(" of " + (attempt + 1) + ", page"));
+
+        String before;
+        do {
+            Thread.sleep(20);
+            before = kiwi.getResponse("list");
+            failed = kiwi.execute("undo");
+        } while (failed.isSuccess());
+        assertEquals("Error: Error saving tasks to file", failed.getText());
+        assertEquals(before, kiwi.getResponse("list"));
+        assertTrue(kiwi.execute("undo").isSuccess());
+    }
+
+    @Test
+    public void testTaskIds_referToTheSameTaskAfterDeletesAndRestarts() {
+        Kiwi kiwi = open();
+        assertTrue(kiwi.getResponse("todo read book").contains("[T][ ] read book (#1)"));
+        kiwi.execute("todo buy milk");
+        kiwi.execute("todo water plants");
+        kiwi.execute("delete 1");
+
+        assertTrue(kiwi.getResponse("mark #3").contains("[T][X] water plants"));
+        assertEquals("Error: There is no task #1!", kiwi.getResponse("unmark #1"));
+        kiwi.execute("edit #2 /desc buy bread");
+        kiwi.execute("bye");
+
+        Kiwi restarted = open();
+        assertTrue(restarted.getResponse("list").contains("1.[T][ ] buy bread (#2)"));
+        assertTrue(restarted.getResponse("delete #3").contains("water plants"));
+        assertTrue(restarted.getResponse("mark #2").contains("[T][X] buy bread"));
+    }
+
+    @Test
+    public void testTaskIds_areNotReusedAfterTheNewestTaskIsDeletedAndRestarted() {
+        Kiwi kiwi = open();
+        kiwi.execute("todo read book");
+        kiwi.execute("todo buy milk");
+        kiwi.execute("delete #2");
+        kiwi.close();
+
+        Kiwi replayed = open();
+        assertTrue(replayed.getResponse("todo water plants").contains("[T][ ] water plants (#3)"));
+        replayed.execute("delete #3");
+        replayed.execute("bye");
+
+        Kiwi reloaded = open();
+        assertTrue(reloaded.getResponse("todo call mum").contains("[T][ ] call mum (#4)"));
+        assertEquals("Error: There is no task #3!", reloaded.getResponse("mark #3"));
+    }
+
+    @Test
+    public void testBulkCommands_changeManyTasksAndSaveOnce() {
+        Kiwi kiwi = open();
+        for (int i = 1; i <= 10; i++) {
+            kiwi.execute("todo " + (i % 3 == 0 ? "write report " : "chore ") + i);
+        }
+
+        assertEquals("Nice! I've marked 5 tasks as done.", kiwi.getResponse("mark 1-5"));
+        assertEquals("Nice! I've marked 2 tasks as done.\n1 task you picked was already done.",
+                kiwi.getResponse("mark find:report"));
+        assertEquals("OK, I've marked 1 task as not done yet.\n1 task you picked was already not done.",
+                kiwi.getResponse("unmark 2,#10"));
+        assertEquals("Noted. I've removed 6 tasks.\nNow you have 4 tasks in the list.",
+                kiwi.getResponse("delete done"));
+        assertEquals("Error: No tasks match done!", kiwi.getResponse("delete done"));
+        assertTrue(kiwi.getResponse("list").contains("1.[T][ ] chore 2 (#2)"));
+        assertEquals(kiwi.getResponse("list"), open().getResponse("list"));
+
+        assertTrue(kiwi.getResponse("undo").contains("Now you have 10 tasks in the list."));
+        kiwi.execute("bye");
+        assertTrue(open().getResponse("list").contains("(1-10 of 10"));
+    }
+
+    @Test
+    public void testBulkCommands_journalSmallSelectionsAndSnapshotLargeOnes() {
+        Path journal = tempDir.resolve("tasks.txt.journal");
+        Kiwi kiwi = open();
+        for (int i = 1; i <= 100; i++) {
+            kiwi.execute("todo task " + i);
+        }
+
+        kiwi.execute("mark 1-50");
+        assertFalse(Files.exists(journal));
+        kiwi.execute("mark 51,52");
+        kiwi.execute("delete 99-100");
+        kiwi.close();
+        assertTrue(Files.exists(journal));
+
+        String page = open().getResponse("list page 3");
+        assertTrue(page.contains("52.[T][X] task 52 (#52)\n53.[T][ ] task 53 (#53)"));
+        assertTrue(page.contains("(41-60 of 98, page 3 of 5)"));
+    }
+
+    @Test
+    public void testStats_countsCommandsErrorsAndTaskTypes() {
+        Kiwi kiwi = open();
+        kiwi.execute("todo read book");
+        kiwi.execute("deadline return book /by 2025-04-02");
+        kiwi.execute("mark 1");
+        kiwi.execute("mark 9");
+        kiwi.execute("blah");
+
+        String stats = kiwi.getResponse("stats");
+
+        assertTrue(stats.contains("Tasks: 2 (1 todos, 1 deadlines, 0 events)"));
+        assertTrue(stats.contains("\n  mark: 2 run, 1 failed, "));
+        assertTrue(stats.contains("\n  unknown: 1"));
+        assertTrue(stats.contains("\nLoads: 1, "));
+    }
+
+    @Test
+    public void testAllocationProfiling_reportsEachCommandType() {
+        Kiwi kiwi = open();
+        assertEquals("Allocation profiling is off.", kiwi.getAllocationReport());
+
+        kiwi.startAllocationProfiling();
+        kiwi.execute("todo read book");
+        kiwi.execute("todo buy milk");
+        kiwi.execute("find book");
+
+        String report = kiwi.getAllocationReport();
+        assertTrue(report.startsWith("Memory allocated per command:"));
+        assertTrue(report.contains("\n  todo: 2 run, "));
+        assertTrue(report.contains("\n  find: 1 run, "));
+    }
+}
@@ -1,9 +1,18 @@
 package kiwi.command;
 
+import java.util.ArrayList;
+import java.util.Map;
+
 import kiwi.exception.KiwiException;
+import kiwi.task.Todo;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class ParserTest {
@@ -27,4 +36,69 @@ public class ParserTest {
                     exception.getMessage());
         }
     }
+
+    @Test
+    public void testParseEdit_readsFieldsUpToNextFlag() throws KiwiException {
+        Map<String, String> updates = Parser.parseEditArgs("2 /desc read a book /from 2025-03-01 /to 2025-03-02");
+
+        assertEquals("1", updates.get("index"));
+        assertEquals("read a book", updates.get("desc"));
+        assertEquals("2025-03-01", updates.get("from"));
+        assertEquals("2025-03-02", updates.get("to"));
+        assertNull(updates.get("by"));
+    }
+
+    @Test
+    public void testParseTaskReference_acceptsNumberOrId() throws KiwiException {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        for (int i = 0; i < 5; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+        tasks.deleteTask(0);
+
+        assertEquals(0, Parser.parseTaskReference(" 1 ", tasks));
+        assertEquals(3, Parser.parseTaskReference("#5", tasks));
+        assertThrows(KiwiException.class, () -> Parser.parseTaskReference("#1", tasks));
+        assertThrows(KiwiException.class, () -> Parser.parseTaskReference("#x", tasks));
+        assertThrows(KiwiException.class, () -> Parser.parseTaskReference("5", tasks));
+        assertEquals("12", Parser.parseEditArgs("#12 /desc read").get("id"));
+    }
+
+    @Test
+    public void testParseTaskSelection_combinesRangesIdsAndPredicates() throws KiwiException {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        for (int i = 1; i <= 20; i++) {
+            tasks.addTask(new Todo(i % 5 == 0 ? "report " + i : "task " + i));
+        }
+        tasks.markTask(1);
+
+        assertTrue(Parser.isTaskSelection("3,7,9-12"));
+        assertTrue(Parser.isTaskSelection(" DONE"));
+        assertTrue(Parser.isTaskSelection("find:report"));
+        assertFalse(Parser.isTaskSelection("#3"));
+        assertArrayEquals(new int[]{2, 6, 8, 9, 10, 11, 19}, Parser.parseTaskSelection("3, 7,9-12,#20,10-11", tasks));
+        assertArrayEquals(new int[]{1}, Parser.parseTaskSelection("done", tasks));
+        assertEquals(19, Parser.parseTaskSelection("undone", tasks).length);
+        assertArrayEquals(new int[]{4, 9, 14, 19}, Parser.parseTaskSelection("find: REPORT", tasks));
+        assertThrows(KiwiException.class, () -> Parser.parseTaskSelection("5-3", tasks));
+        assertThrows(KiwiException.class, () -> Parser.parseTaskSelection("1-21", tasks));
+        assertThrows(KiwiException.class, () -> Parser.parseTaskSelection("1,,2", tasks));
+        assertThrows(KiwiException.class, () -> Parser.parseTaskSelection("find:nothing", tasks));
+    }
+
+    @Test
+    public void testParseEvent_splitsAtFlags() throws KiwiException {
+        String[] parts = Parser.parseEventArgs("project meeting /from Mon 2pm /to 4pm");
+
+        assertArrayEquals(new String[]{"project meeting", "Mon 2pm", "4pm"}, parts);
+    }
+
+    @Test
+    public void testLookup_ignoresCaseAndStopsAtSpace() {
+        assertEquals(CommandType.DEADLINE, CommandRegistry.lookup("DeadLine submit /by 2025-04-02"));
+        assertEquals(CommandType.DUE, CommandRegistry.lookup("due"));
+        assertNull(CommandRegistry.lookup("dues 2025-04-02"));
+        assertNull(CommandRegistry.lookup("de"));
+        assertEquals("", CommandRegistry.argumentsOf("list"));
+    }
 }
@@ -0,0 +1,300 @@
+package kiwi.command;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import kiwi.exception.KiwiException;
+import kiwi.task.Deadline;
+import kiwi.task.Event;
+import kiwi.task.Task;
+import kiwi.task.Todo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskListTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    private static Deadline deadline(String description, int day, int hour) {
+        return new Deadline(description, LocalDate.of(2025, 3, day), LocalTime.of(hour, 0));
+    }
+
+    @Test
+    public void testDeadlineQueries_followMarkDeleteAndEdit() throws KiwiException {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        tasks.addTask(deadline("late", 1, 9));
+        tasks.addTask(new Todo("chores"));
+        tasks.addTask(deadline("soon", 1, 18));
+        tasks.addTask(deadline("later", 5, 10));
+
+        assertEquals(2, tasks.findDueOn(LocalDate.of(2025, 3, 1)).size());
+        assertEquals("late", tasks.findOverdue(NOW).getTask(0).getDescription());
+        assertEquals("soon", tasks.findUpcoming(NOW, 1).getTask(0).getDescription());
+
+        tasks.markTask(0);
+        assertEquals(0, tasks.findOverdue(NOW).size());
+
+        tasks.deleteTask(2);
+        tasks.replaceTask(2, deadline("moved", 1, 20));
+        TaskList upcoming = tasks.findUpcoming(NOW, 5);
+        assertEquals(1, upcoming.size());
+        assertEquals("moved", upcoming.getTask(0).getDescription());
+    }
+
+    @Test
+    public void testEventQueries_findAgendaAndClashes() throws KiwiException {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        tasks.addTask(new Event("standup", "2025-03-01 09:00", "09:15"));
+        tasks.addTask(new Event("conference", "2025-02-28", "2025-03-02"));
+        tasks.addTask(new Event("party", "tonight", "late"));
+
+        TaskList agenda = tasks.findEventsOn(LocalDate.of(2025, 3, 1));
+        assertEquals(2, agenda.size());
+        assertEquals("conference", agenda.getTask(0).getDescription());
+
+        Event overlapping = new Event("review", "2025-03-01 09:10", "10:00");
+        assertEquals(2, tasks.findClashes(overlapping).size());
+        tasks.markTask(0);
+        assertEquals(1, tasks.findClashes(overlapping).size());
+        assertEquals(0, tasks.findClashes(new Event("later", "2025-03-03", "2025-03-03")).size());
+    }
+
+    @Test
+    public void testSnapshot_isSharedUntilChangedAndUnaffectedByMarks() throws KiwiException {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(deadline("submit report", 2, 23));
+
+        TaskList.Snapshot before = tasks.snapshot();
+        assertSame(before, tasks.snapshot());
+        Task unmarked = tasks.getTask(1);
+
+        tasks.markTask(1);
+        tasks.addTask(new Todo("buy milk"));
+        TaskList.Snapshot after = tasks.snapshot();
+
+        assertNotSame(before, after);
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(2, before.size());
+        assertFalse(before.getTasks().get(1).isDone());
+        assertFalse(unmarked.isDone());
+        assertTrue(after.getTasks().get(1).isDone());
+        assertEquals(1, after.getDeadlineCount());
+        assertEquals(0, tasks.findOverdue(LocalDateTime.of(2025, 3, 5, 0, 0)).size());
+        assertEquals(1, tasks.findTasks("report").size());
+    }
+
+    @Test
+    public void testSnapshots_stayConsistentWhileAnotherThreadWrites() throws Exception {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> isConsistent = reader.submit(() -> {
+                boolean isOk = true;
+                while (tasks.size() < 2000) {
+                    // Every even task is marked before the next one is added.
+                    List<Task> snapshot = tasks.snapshot().getTasks();
+                    for (int i = 0; i + 1 < snapshot.size(); i += 2) {
+                        isOk &= snapshot.get(i).isDone();
+                    }
+                    isOk &= tasks.findTasks("task").size() <= tasks.size();
+                }
+                return isOk;
+            });
+            for (int i = 0; i < 2000; i++) {
+                tasks.addTask(new Todo("task " + i));
+                if (i % 2 == 0) {
+                    tasks.markTask(i);
+                }
+            }
+            assertTrue(isConsistent.get());
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUndoRedo_restoreTasksIndexesAndCounts() throws KiwiException {
+        TaskList tasks = new TaskList(new ArrayList<>(List.of(new Todo("read report"))));
+        tasks.addTask(deadline("submit report", 1, 9));
+        tasks.checkpoint();
+        tasks.deleteTask(0);
+        tasks.markTask(0);
+        tasks.checkpoint();
+
+        List<TaskList.Change> undone = tasks.undo(1);
+        assertEquals(2, undone.size());
+        assertEquals(2, tasks.size());
+        assertEquals("read report", tasks.findTasks("report").getTask(0).getDescription());
+        assertEquals(1, tasks.findOverdue(NOW).size());
+
+        tasks.undo(1);
+        assertEquals(1, tasks.size());
+        assertEquals(0, tasks.getDeadlineCount());
+        assertTrue(tasks.undo(1).isEmpty());
+
+        assertEquals(3, tasks.redo(5).size());
+        assertEquals(1, tasks.size());
+        assertTrue(tasks.getTask(0).isDone());
+        assertEquals(0, tasks.findOverdue(NOW).size());
+        assertEquals(1, tasks.findTasks("report").size());
+    }
+
+    @Test
+    public void testHistory_dropsRedoOnNewStepAndKeepsOnlyTheLimit() throws KiwiException {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        tasks.setHistoryLimit(2);
+        for (int i = 0; i < 4; i++) {
+            tasks.addTask(new Todo("task " + i));
+            tasks.checkpoint();
+        }
+        assertEquals(2, tasks.undo(10).size());
+        assertEquals(2, tasks.size());
+
+        tasks.addTask(new Todo("other"));
+        tasks.checkpoint();
+        assertTrue(tasks.redo(1).isEmpty());
+
+        tasks.addTask(new Todo("discarded"));
+        tasks.revertToCheckpoint();
+        assertEquals(3, tasks.size());
+        assertEquals(0, tasks.findTasks("discarded").size());
+    }
+
+    @Test
+    public void testRedo_keepsChangesSinceTheLastCheckpoint() throws KiwiException {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        tasks.addTask(deadline("report", 1, 9));
+        tasks.checkpoint();
+        tasks.deleteTask(0);
+        tasks.checkpoint();
+        tasks.undo(1);
+        tasks.markTask(0);
+
+        assertTrue(tasks.redo(1).isEmpty());
+        assertTrue(tasks.getTask(0).isDone());
+        assertEquals(2, tasks.undo(2).size());
+        assertEquals(0, tasks.size());
+        assertEquals(0, tasks.findDueOn(LocalDate.of(2025, 3, 1)).size());
+        assertEquals(0, tasks.findTasks("report").size());
+    }
+
+    @Test
+    public void testIds_areStableAcrossDeletesMarksAndEdits() throws KiwiException {
+        Todo old = new Todo("from an old file");
+        TaskList tasks = new TaskList(new ArrayList<>(List.of(old)));
+        for (int i = 0; i < 100; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+        tasks.checkpoint();
+        tasks.deleteTask(0);
+        tasks.deleteTask(49);
+        tasks.markTask(9);
+        tasks.replaceTask(19, new Todo("edited"));
+        tasks.checkpoint();
+
+        assertEquals(1, old.getId());
+        assertEquals(0, tasks.indexOf(2));
+        assertEquals(9, tasks.indexOf(11));
+        assertTrue(tasks.getTask(9).isDone());
+        assertEquals("edited", tasks.getTask(tasks.indexOf(21)).getDescription());
+        assertEquals(49, tasks.indexOf(52));
+        assertEquals(1, tasks.findTasks("edited").indexOf(21) + 1);
+        assertThrows(KiwiException.class, () -> tasks.indexOf(51));
+        assertThrows(IllegalArgumentException.class, () -> tasks.addTask(old));
+
+        tasks.undo(1);
+        assertEquals(50, tasks.indexOf(51));
+        tasks.addTask(new Todo("new"));
+        assertEquals(101, tasks.indexOf(102));
+    }
+
+    @Test
+    public void testBulkChanges_matchOneAtATimeOnBothPaths() throws KiwiException {
+        for (int count : new int[]{3, 600}) {
+            TaskList tasks = new TaskList(new ArrayList<>());
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                tasks.addTask(i % 2 == 0 ? new Todo("task " + i) : deadline("task " + i, 1 + i % 28, 9));
+                expected.add("task " + i);
+            }
+            tasks.checkpoint();
+            int[] indices = new int[count];
+            for (int i = 0; i < count; i++) {
+                indices[i] = i * 1000 / count;
+            }
+
+            assertEquals(count, tasks.markTasks(indices).size());
+            assertEquals(0, tasks.markTasks(indices).size());
+            assertEquals(count, tasks.findIndices(Task::isDone).length);
+            List<Task> removed = tasks.deleteTasks(tasks.findIndices(Task::isDone));
+            for (int i = count - 1; i >= 0; i--) {
+                assertEquals(expected.remove(indices[i]), removed.get(i).getDescription());
+            }
+            assertEquals(expected.size(), tasks.size());
+            assertEquals(expected.get(expected.size() - 1), tasks.getTask(tasks.size() - 1).getDescription());
+            assertEquals(0, tasks.findTasks("task 0").size());
+            assertEquals(tasks.size() - tasks.getDeadlineCount(), tasks.findIndices(t -> t instanceof Todo).length);
+            assertEquals(tasks.size() - 1, tasks.indexOf(1000));
+
+            tasks.checkpoint();
+            assertEquals(count * 2, tasks.undo(1).size());
+            assertEquals(1000, tasks.size());
+            assertEquals(500, tasks.getDeadlineCount());
+            assertEquals(0, tasks.findIndices(Task::isDone).length);
+        }
+
+        TaskList tasks = new TaskList(new ArrayList<>(List.of(new Todo("a"), new Todo("b"))));
+        assertThrows(KiwiException.class, () -> tasks.deleteTasks(new int[]{1, 0}));
+        assertThrows(KiwiException.class, () -> tasks.markTasks(new int[]{0, 2}));
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    public void testFindTasks_matchesAFullScanAcrossAddsEditsAndDeletes() throws KiwiException {
+        Random random = new Random(6);
+        String[] words = {"Report", "reporting", "book", "Bookshelf", "read", "ready", "team-meeting", "q3", "call",
+            "mum", "buy", "milk", "fix", "bike", "gym", "plan", "trip", "pay", "rent", "email", "boss", "walk",
+            "dog", "water"};
+        String[] keywords = {"report", "PORT", "ook", "read book", "book read", "team-m", "ady", "q3 rep",
+            "-", " ", "nothing"};
+        TaskList tasks = new TaskList(new ArrayList<>());
+        for (int i = 0; i < 2000; i++) {
+            String description = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            int operation = random.nextInt(4);
+            if (operation < 2 || tasks.size() == 0) {
+                tasks.addTask(new Todo(description));
+            } else if (operation == 2) {
+                tasks.replaceTask(random.nextInt(tasks.size()), new Todo(description));
+            } else {
+                tasks.deleteTask(random.nextInt(tasks.size()));
+            }
+            if (i % 100 == 99) {
+                tasks.markTask(random.nextInt(tasks.size()));
+                for (String keyword : keywords) {
+                    assertEquals(describe(tasks.scanTasks(keyword)), describe(tasks.findTasks(keyword)), keyword);
+                }
+            }
+        }
+    }
+
+    private static List<String> describe(TaskList tasks) throws KiwiException {
+        List<String> descriptions = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            descriptions.add(tasks.getTask(i).getId() + " " + tasks.getTask(i));
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,70 @@
+package kiwi.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import kiwi.task.Task;
+import kiwi.task.Todo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaskVectorTest {
+    @Test
+    public void testChanges_matchAnArrayListAndLeaveOldVersionsIntact() {
+        Random random = new Random(7);
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(new Todo("task " + i));
+        }
+        TaskVector vector = TaskVector.of(expected);
+
+        TaskVector first = vector;
+        List<Task> firstExpected = new ArrayList<>(expected);
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(3);
+            if (operation == 0 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                Task task = new Todo("added " + i);
+                expected.add(index, task);
+                vector = vector.insert(index, task);
+            } else if (operation == 1) {
+                int index = random.nextInt(expected.size());
+                expected.remove(index);
+                vector = vector.remove(index);
+            } else {
+                int index = random.nextInt(expected.size());
+                Task task = new Todo("set " + i);
+                expected.set(index, task);
+                vector = vector.set(index, task);
+            }
+        }
+
+        assertEquals(expected, vector.asList());
+        assertEquals(firstExpected, first.asList());
+        assertEquals(expected.subList(40, 60), vector.slice(40, 60));
+    }
+
+    @Test
+    public void testIndexOfId_followsPositionsAfterRemovals() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            Task task = new Todo("task " + i);
+            task.setId(i * 2);
+            tasks.add(task);
+        }
+        TaskVector vector = TaskVector.of(tasks).remove(0).remove(499);
+
+        assertEquals(0, vector.indexOfId(4));
+        assertEquals(498, vector.indexOfId(1000));
+        assertEquals(499, vector.indexOfId(1004));
+        assertEquals(997, vector.indexOfId(2000));
+        assertEquals(-1, vector.indexOfId(2));
+        assertEquals(-1, vector.indexOfId(1002));
+        assertEquals(-1, vector.indexOfId(7));
+        assertEquals(-1, TaskVector.EMPTY.indexOfId(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.insert(999, new Todo("x")));
+    }
+}
@@ -0,0 +1,68 @@
+package kiwi.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testPercentile_withinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1_000_000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000.5, histogram.getMean(), 1e-6);
+        assertInRange(500_000, histogram.getPercentile(0.5));
+        assertInRange(990_000, histogram.getPercentile(0.99));
+        assertInRange(999_000, histogram.getPercentile(0.999));
+        assertEquals(1_000_000, histogram.getPercentile(1.0));
+    }
+
+    @Test
+    public void testPercentile_emptyAndSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.99));
+
+        histogram.record(-5);
+        histogram.record(7);
+        histogram.record(63);
+
+        assertEquals(0, histogram.getPercentile(0.3));
+        assertEquals(7, histogram.getPercentile(0.5));
+        assertEquals(63, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void testBuckets_coverEveryValueOnce() {
+        for (int bucket = 0; bucket < 1000; bucket++) {
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+            assertEquals(bucket + 1, LatencyHistogram.bucketOf(highest + 1));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testAdd_mergesCountsAndMax() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(20);
+        second.record(5_000);
+
+        first.add(second);
+
+        assertEquals(3, first.getCount());
+        assertEquals(5_000, first.getMax());
+        assertEquals(20, first.getPercentile(0.5));
+    }
+
+    private static void assertInRange(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.04,
+                "expected about " + expected + " but got " + actual);
+    }
+}
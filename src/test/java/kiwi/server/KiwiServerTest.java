@@ -0,0 +1,173 @@
+package kiwi.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import kiwi.Kiwi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KiwiServerTest {
+    @TempDir
+    Path tempDir;
+
+    private KiwiServer server;
+    private int port;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = new KiwiServer(tempDir);
+        port = server.start(0);
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testUsers_haveSeparateTaskLists() throws IOException {
+        try (Connection alice = new Connection("alice"); Connection bob = new Connection("bob")) {
+            assertTrue(alice.send("todo read book").isSuccess());
+            assertTrue(bob.send("todo buy milk").isSuccess());
+
+            assertTrue(alice.send("list").getText().contains("read book"));
+            assertFalse(alice.send("list").getText().contains("buy milk"));
+            assertFalse(bob.send("list").getText().contains("read book"));
+        }
+    }
+
+    @Test
+    public void testConnections_ofOneUserShareTheirTaskList() throws IOException {
+        try (Connection first = new Connection("Carol"); Connection second = new Connection("carol")) {
+            first.send("todo water plants");
+
+            assertTrue(second.send("list").getText().contains("water plants"));
+        }
+    }
+
+    @Test
+    public void testReply_keepsEveryLineAndReportsErrors() throws IOException {
+        try (Connection connection = new Connection("dave")) {
+            connection.send("todo one");
+            connection.send("todo two");
+
+            Protocol.Reply list = connection.send("list");
+            assertTrue(list.isSuccess());
+            assertTrue(list.getText().contains("1.") && list.getText().contains("2."));
+            assertFalse(connection.send("mark 9").isSuccess());
+        }
+    }
+
+    @Test
+    public void testDisconnect_midBatchRollsTheBatchBack() throws IOException, InterruptedException {
+        try (Connection second = new Connection("bob")) {
+            try (Connection first = new Connection("bob")) {
+                assertTrue(first.send("begin").isSuccess());
+                assertTrue(first.send("todo from the batch").isSuccess());
+                assertFalse(second.send("todo too early").isSuccess());
+            }
+            Protocol.Reply list = second.send("list");
+            for (int i = 0; i < 100 && !list.isSuccess(); i++) {
+                Thread.sleep(50);
+                list = second.send("list");
+            }
+            assertFalse(list.getText().contains("from the batch"));
+
+            assertTrue(second.send("todo after the batch").isSuccess());
+            assertTrue(second.send("bye").isSuccess());
+        }
+        try (Kiwi reloaded = new Kiwi(tempDir.resolve("bob.txt").toString())) {
+            String tasks = reloaded.getResponse("list");
+            assertTrue(tasks.contains("after the batch"));
+            assertFalse(tasks.contains("from the batch"));
+        }
+    }
+
+    @Test
+    public void testLastDisconnect_closesTheUsersKiwiUntilTheyReturn() throws IOException, InterruptedException {
+        try (Connection first = new Connection("frank"); Connection second = new Connection("frank")) {
+            first.send("todo read book");
+            first.close();
+            Thread.sleep(50);
+            assertEquals(1, server.getOpenUserCount());
+            assertTrue(second.send("list").getText().contains("read book"));
+        }
+        for (int i = 0; i < 100 && server.getOpenUserCount() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, server.getOpenUserCount());
+        try (Kiwi reloaded = new Kiwi(tempDir.resolve("frank.txt").toString())) {
+            assertTrue(reloaded.getResponse("list").contains("read book"));
+        }
+
+        try (Connection returning = new Connection("frank")) {
+            assertEquals(1, server.getOpenUserCount());
+            assertTrue(returning.send("list").getText().contains("read book"));
+        }
+    }
+
+    @Test
+    public void testInvalidUserName_isRejectedAndDisconnected() throws IOException {
+        try (Connection connection = new Connection("../etc")) {
+            assertFalse(connection.greeting.isSuccess());
+            assertNull(connection.in.readLine());
+        }
+    }
+
+    @Test
+    public void testBye_closesTheConnection() throws IOException {
+        try (Connection connection = new Connection("erin")) {
+            assertTrue(connection.send("bye").isSuccess());
+            assertNull(connection.in.readLine());
+        }
+    }
+
+    @Test
+    public void testIsValidUserName() {
+        assertTrue(KiwiServer.isValidUserName("user_01-a"));
+        assertFalse(KiwiServer.isValidUserName(""));
+        assertFalse(KiwiServer.isValidUserName("a b"));
+        assertFalse(KiwiServer.isValidUserName("a".repeat(33)));
+        assertTrue(KiwiServer.isValidUserName("a".repeat(32)));
+    }
+
+    private class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+        private final Protocol.Reply greeting;
+
+        Connection(String user) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            greeting = send(Protocol.USER_PREFIX + user);
+        }
+
+        Protocol.Reply send(String line) throws IOException {
+            out.write(line + "\n");
+            out.flush();
+            return Protocol.readReply(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package kiwi.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import kiwi.exception.KiwiException;
+import kiwi.task.Deadline;
+import kiwi.task.Task;
+import kiwi.task.Todo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testJournalReplay_appliesRecordsInOrder() throws KiwiException {
+        Storage storage = new Storage(tempDir.resolve("kiwi.txt").toString());
+        storage.appendAdd(new Todo("read book"));
+        storage.appendAdd(new Deadline("submit report", "2025-04-02 23:00"));
+        storage.appendAdd(new Todo("buy milk"));
+        storage.appendMark(1);
+        storage.appendDelete(0);
+        storage.appendReplace(1, new Todo("buy bread"));
+        storage.appendInsert(1, new Todo("read book"));
+
+        ArrayList<Task> tasks = storage.load();
+
+        assertEquals(3, tasks.size());
+        assertEquals("D | 1 | submit report | 2025-04-02 23:00", tasks.get(0).toFileFormat());
+        assertEquals("T | 0 | read book", tasks.get(1).toFileFormat());
+        assertEquals("T | 0 | buy bread", tasks.get(2).toFileFormat());
+    }
+
+    @Test
+    public void testSave_clearsJournal() throws KiwiException {
+        String filePath = tempDir.resolve("kiwi.txt").toString();
+        Storage storage = new Storage(filePath);
+        storage.appendAdd(new Todo("read book"));
+        storage.appendMark(0);
+        storage.save(storage.load());
+
+        ArrayList<Task> tasks = new Storage(filePath).load();
+
+        assertEquals(1, tasks.size());
+        assertEquals("T | 1 | read book", tasks.get(0).toFileFormat());
+    }
+
+    @Test
+    public void testLoad_ignoresTornFinalRecord() throws KiwiException, IOException {
+        String filePath = tempDir.resolve("kiwi.txt").toString();
+        Storage storage = new Storage(filePath);
+        storage.appendAdd(new Todo("read book"));
+        storage.flush();
+        Files.write(Path.of(filePath + ".journal"), "2 | A | T | 0 | half wri".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        Storage reloaded = new Storage(filePath);
+        assertEquals(1, reloaded.load().size());
+
+        reloaded.appendAdd(new Todo("buy milk"));
+        reloaded.flush();
+        ArrayList<Task> tasks = new Storage(filePath).load();
+        assertEquals(2, tasks.size());
+        assertEquals("T | 0 | buy milk", tasks.get(1).toFileFormat());
+    }
+
+    @Test
+    public void testLoad_migratesTextFileToBinary() throws KiwiException, IOException {
+        Path file = tempDir.resolve("kiwi.txt");
+        Files.write(file, List.of("T | 1 | read book", "D | 0 | submit report | 2025-04-02 23:00",
+                "E | 0 | team meeting | 3pm | 4pm"), StandardCharsets.UTF_8);
+
+        Storage storage = new Storage(file.toString());
+        storage.setSnapshotFormat(SnapshotFormat.BINARY);
+        storage.load();
+
+        assertEquals('K', Files.readAllBytes(file)[0]);
+        ArrayList<Task> tasks = new Storage(file.toString()).load();
+        assertEquals(3, tasks.size());
+        assertEquals("T | 1 | read book", tasks.get(0).toFileFormat());
+        assertEquals("D | 0 | submit report | 2025-04-02 23:00", tasks.get(1).toFileFormat());
+        assertEquals("E | 0 | team meeting | 3pm | 4pm", tasks.get(2).toFileFormat());
+    }
+
+    @Test
+    public void testIds_surviveTextBinaryAndJournal() throws KiwiException {
+        String filePath = tempDir.resolve("kiwi.txt").toString();
+        Storage storage = new Storage(filePath);
+        Todo todo = new Todo("read book");
+        todo.setId(7);
+        Deadline deadline = new Deadline("submit report", "2025-04-02 23:00");
+        deadline.setId(9);
+        storage.appendAdd(todo);
+        storage.appendAdd(deadline);
+        storage.flush();
+
+        ArrayList<Task> tasks = new Storage(filePath).load();
+        assertEquals(7, tasks.get(0).getId());
+        assertEquals(9, tasks.get(1).getId());
+
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            Storage saving = new Storage(filePath);
+            saving.setSnapshotFormat(format);
+            saving.save(tasks);
+            ArrayList<Task> reloaded = new Storage(filePath).load();
+            assertEquals(7, reloaded.get(0).getId());
+            assertEquals(9, reloaded.get(1).getId());
+            assertEquals("D | 0 | submit report | 2025-04-02 23:00", reloaded.get(1).toFileFormat());
+        }
+    }
+
+    @Test
+    public void testNextId_survivesDeletesInTheJournalAndSnapshots() throws KiwiException {
+        String filePath = tempDir.resolve("kiwi.txt").toString();
+        Storage storage = new Storage(filePath);
+        for (long id = 1; id <= 3; id++) {
+            Todo todo = new Todo("task " + id);
+            todo.setId(id);
+            storage.appendAdd(todo);
+        }
+        storage.appendDelete(2);
+        storage.flush();
+
+        Storage replayed = new Storage(filePath);
+        ArrayList<Task> tasks = replayed.load();
+        assertEquals(2, tasks.size());
+        assertEquals(4, replayed.getNextId());
+
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            Storage saving = new Storage(filePath);
+            saving.setSnapshotFormat(format);
+            saving.save(tasks, 4);
+            Storage reloaded = new Storage(filePath);
+            reloaded.setSnapshotFormat(format);
+            reloaded.load();
+            assertEquals(4, reloaded.getNextId());
+        }
+    }
+}
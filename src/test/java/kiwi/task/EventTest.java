@@ -1,8 +1,11 @@
 package kiwi.task;
 
+import java.time.LocalDateTime;
+
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class EventTest {
@@ -15,4 +18,17 @@ public class EventTest {
         assertEquals("E | 0 | team meeting | 3pm | 4pm", e1.toFileFormat());
         assertEquals("E | 1 | watch tennis | 4pm | 5pm", e2.toFileFormat());
     }
+
+    @Test
+    public void testSchedule_parsesDatesAndKeepsFreeText() {
+        Event meeting = new Event("team meeting", "2025-03-01 15:00", "16:00");
+        Event trip = new Event("trip", "2025-03-01", "2025-03-02");
+        Event party = new Event("party", "3pm", "4pm");
+
+        assertEquals(LocalDateTime.of(2025, 3, 1, 15, 0), meeting.getStart());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 16, 0), meeting.getEnd());
+        assertEquals(LocalDateTime.of(2025, 3, 3, 0, 0), trip.getEnd());
+        assertFalse(party.isScheduled());
+        assertEquals("[E][ ] party (from: 3pm to: 4pm)", party.toString());
+    }
 }
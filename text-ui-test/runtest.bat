@@ -3,11 +3,16 @@
 REM create bin directory if it doesn't exist
 if not exist ..\bin mkdir ..\bin
 
-REM delete output from previous run
+REM delete output and task data from previous run
 if exist ACTUAL.TXT del ACTUAL.TXT
+if exist data rmdir /s /q data
 
-REM compile the code into the bin folder
-javac  -cp ..\src\main\java -Xlint:none -d ..\bin ..\src\main\java\*.java
+REM compile the code that does not need JavaFX into the bin folder
+if exist sources.txt del sources.txt
+for /r ..\src\main\java %%f in (*.java) do (
+    findstr /m /c:"javafx" "%%f" >nul || echo "%%f">> sources.txt
+)
+javac -encoding UTF-8 -Xlint:none -d ..\bin @sources.txt
 IF ERRORLEVEL 1 (
     echo ********** BUILD FAILURE **********
     exit /b 1
@@ -15,7 +20,7 @@ IF ERRORLEVEL 1 (
 REM no error here, errorlevel == 0
 
 REM run the program, feed commands from input.txt file and redirect the output to the ACTUAL.TXT
-java -classpath ..\bin Kiwi < input.txt > ACTUAL.TXT
+java -classpath ..\bin kiwi.Cli --data .\data\kiwi.txt < input.txt > ACTUAL.TXT
 
 REM compare the output to the expected output
 FC ACTUAL.TXT EXPECTED.TXT